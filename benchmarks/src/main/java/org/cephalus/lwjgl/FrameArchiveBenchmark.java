@@ -0,0 +1,158 @@
+package org.cephalus.lwjgl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Encoding and decoding of recorded frames: PNG entries of zips, as written by {@link Recorder}, and raw frame
+ * archives. Each operation handles a sequence of {@link #FRAMES} slowly changing frames.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FrameArchiveBenchmark {
+
+    private static final int FRAMES = 8;
+
+    @Param({"320x240", "1280x720", "1920x1080"})
+    public String resolution;
+
+    private BufferedImage[] frames;
+    private File zip;
+    private File raw;
+    private File rawDeflate;
+    private File tileDelta;
+    private File output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        frames = new BufferedImage[FRAMES];
+        frames[0] = SyntheticFrames.frame(SyntheticFrames.width(resolution), SyntheticFrames.height(resolution), 1);
+        for (int i = 1; i < FRAMES; ++i)
+            frames[i] = SyntheticFrames.changed(frames[i - 1], 0.02, i);
+
+        zip = File.createTempFile("frames", ".zip");
+        raw = File.createTempFile("frames", RawFrameArchive.EXTENSION);
+        rawDeflate = File.createTempFile("frames-deflate", RawFrameArchive.EXTENSION);
+        tileDelta = File.createTempFile("frames-delta", RawFrameArchive.EXTENSION);
+        output = File.createTempFile("output", ".tmp");
+        writeZip(zip);
+        writeRaw(new RawFrameArchiveWriter(raw, false));
+        writeRaw(new RawFrameArchiveWriter(rawDeflate, true));
+        writeRaw(tileDeltaWriter(tileDelta));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (File file : new File[] {zip, raw, rawDeflate, tileDelta, output})
+            file.delete();
+    }
+
+    @Benchmark
+    public long encodePng() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (BufferedImage frame : frames) {
+            out.reset();
+            ImageIO.write(frame, "PNG", out);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public long writeZip() throws IOException {
+        writeZip(output);
+        return output.length();
+    }
+
+    @Benchmark
+    public int readZip() throws IOException {
+        return read(new ZipReferenceFrames(zip));
+    }
+
+    @Benchmark
+    public long writeRaw() throws IOException {
+        writeRaw(new RawFrameArchiveWriter(output, false));
+        return output.length();
+    }
+
+    @Benchmark
+    public int readRaw() throws IOException {
+        return read(RawFrameArchive.open(raw));
+    }
+
+    @Benchmark
+    public long writeRawDeflate() throws IOException {
+        writeRaw(new RawFrameArchiveWriter(output, true));
+        return output.length();
+    }
+
+    @Benchmark
+    public int readRawDeflate() throws IOException {
+        return read(RawFrameArchive.open(rawDeflate));
+    }
+
+    @Benchmark
+    public long writeTileDelta() throws IOException {
+        writeRaw(tileDeltaWriter(output));
+        return output.length();
+    }
+
+    @Benchmark
+    public int readTileDelta() throws IOException {
+        return read(RawFrameArchive.open(tileDelta));
+    }
+
+    private void writeZip(File file) throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < frames.length; ++i) {
+                out.putNextEntry(new ZipEntry(String.format("frame_%04d.png", i + 1)));
+                ImageIO.write(frames[i], "PNG", out);
+            }
+        }
+    }
+
+    private void writeRaw(RawFrameArchiveWriter writer) throws IOException {
+        try (RawFrameArchiveWriter archive = writer) {
+            for (BufferedImage frame : frames)
+                archive.write(frame);
+        }
+    }
+
+    private static RawFrameArchiveWriter tileDeltaWriter(File file) throws IOException {
+        return new RawFrameArchiveWriter(file, RawFrameArchive.COMPRESSION_TILE_DELTA
+                , RawFrameArchiveWriter.DEFAULT_TILE_SIZE, RawFrameArchiveWriter.DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    private static int read(ReferenceFrames archive) throws IOException {
+        int sum = 0;
+        try (ReferenceFrames frames = archive) {
+            for (int i = 0; i < frames.size(); ++i)
+                sum += frames.read(i).getRGB(0, 0);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,67 @@
+package org.cephalus.lwjgl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Difference image, divergence and single pass comparison of two frames differing in 5% of their pixels.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageComparatorBenchmark {
+
+    @Param({"320x240", "1280x720", "1920x1080", "3840x2160"})
+    public String resolution;
+
+    private BufferedImage expected;
+    private BufferedImage actual;
+    private BufferedImage difference;
+
+    @Setup
+    public void setUp() {
+        expected = SyntheticFrames.frame(SyntheticFrames.width(resolution), SyntheticFrames.height(resolution), 1);
+        actual = SyntheticFrames.changed(expected, 0.05, 2);
+        difference = ImageComparator.getDifferenceImage(expected, actual);
+    }
+
+    @Benchmark
+    public BufferedImage differenceImage() {
+        return ImageComparator.getDifferenceImage(expected, actual);
+    }
+
+    @Benchmark
+    public float divergence() {
+        return ImageComparator.calculateDivergence(difference);
+    }
+
+    @Benchmark
+    public float compare() {
+        return ImageComparator.compare(expected, actual, 1f).getDivergence();
+    }
+
+    @Benchmark
+    public float compareParallel() {
+        return ImageComparator.compare(expected, actual, 1f, 1).getDivergence();
+    }
+
+    @Benchmark
+    public long hash() {
+        return FrameHash.of(actual);
+    }
+}
@@ -0,0 +1,56 @@
+package org.cephalus.lwjgl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of the pixels read back by {@link Recorder#takeSnapshot()}, bottom-up BGRA in a direct buffer,
+ * to a {@link BufferedImage}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotConversionBenchmark {
+
+    @Param({"320x240", "1280x720", "1920x1080", "3840x2160"})
+    public String resolution;
+
+    private IntBuffer pixels;
+    private int width;
+    private int height;
+
+    @Setup
+    public void setUp() {
+        width = SyntheticFrames.width(resolution);
+        height = SyntheticFrames.height(resolution);
+        pixels = ByteBuffer.allocateDirect(width * height * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+        Random random = new Random(1);
+        while (pixels.hasRemaining())
+            pixels.put(random.nextInt());
+        pixels.clear();
+    }
+
+    @Benchmark
+    public BufferedImage toImage() {
+        return Recorder.toImage(pixels, width, height);
+    }
+}
@@ -0,0 +1,53 @@
+package org.cephalus.lwjgl;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Random;
+
+/**
+ * Frames filled with pseudo-random pixels, so benchmarks need no GL context.
+ */
+final class SyntheticFrames {
+
+    private SyntheticFrames() {
+    }
+
+    static int width(String resolution) {
+        return Integer.parseInt(resolution.substring(0, resolution.indexOf('x')));
+    }
+
+    static int height(String resolution) {
+        return Integer.parseInt(resolution.substring(resolution.indexOf('x') + 1));
+    }
+
+    /**
+     * Smooth gradient with noise, compressing about as well as a rendered frame.
+     */
+    static BufferedImage frame(int width, int height, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int y = 0, i = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x, ++i) {
+                int r = x * 255 / width;
+                int g = y * 255 / height;
+                int b = (r + g) / 2 + random.nextInt(8);
+                data[i] = (r << 16) | (g << 8) | Math.min(b, 0xFF);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Copy of {@code source} with {@code ratio} of its pixels changed.
+     */
+    static BufferedImage changed(BufferedImage source, double ratio, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        int[] from = ((DataBufferInt) source.getRaster().getDataBuffer()).getData();
+        int[] to = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < to.length; ++i)
+            to[i] = random.nextDouble() < ratio ? from[i] ^ random.nextInt(0x404040) : from[i];
+        return image;
+    }
+}
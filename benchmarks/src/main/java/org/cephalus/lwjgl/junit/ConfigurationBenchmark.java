@@ -0,0 +1,86 @@
+package org.cephalus.lwjgl.junit;
+
+import org.cephalus.lwjgl.Configuration;
+import org.cephalus.lwjgl.Fps;
+import org.cephalus.lwjgl.FrameBudget;
+import org.cephalus.lwjgl.Iterations;
+import org.cephalus.lwjgl.Profile;
+import org.cephalus.lwjgl.Swap;
+import org.cephalus.lwjgl.Warmup;
+import org.cephalus.lwjgl.Window;
+import org.junit.Test;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.TestClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.cephalus.lwjgl.Swap.Type.MANUAL;
+
+/**
+ * Resolution of the configuration of a test method from the annotations of its class and of the method itself,
+ * done by the runner before every test method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@org.openjdk.jmh.annotations.Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Configuration
+public class ConfigurationBenchmark {
+
+    private Configuration defaults;
+    private TestClass testClass;
+    private FrameworkMethod plain;
+    private FrameworkMethod annotated;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        defaults = ConfigurationBenchmark.class.getAnnotation(Configuration.class);
+        testClass = new TestClass(AnnotatedTest.class);
+        plain = new FrameworkMethod(AnnotatedTest.class.getMethod("plain"));
+        annotated = new FrameworkMethod(AnnotatedTest.class.getMethod("annotated"));
+    }
+
+    @Benchmark
+    public Object classAnnotations() {
+        return new LwjglRunner.CombinedConfiguration(defaults, testClass, plain);
+    }
+
+    @Benchmark
+    public Object methodAnnotations() {
+        return new LwjglRunner.CombinedConfiguration(defaults, testClass, annotated);
+    }
+
+    @Benchmark
+    public Object withTestClassScan() {
+        return new LwjglRunner.CombinedConfiguration(defaults, new TestClass(AnnotatedTest.class), annotated);
+    }
+
+    @Iterations(10)
+    @Window(width = 320, height = 240)
+    @Profile(330)
+    public static class AnnotatedTest {
+
+        @Test
+        public void plain() {
+        }
+
+        @Test
+        @Fps(30)
+        @Swap(MANUAL)
+        @Warmup(5)
+        @FrameBudget(p95 = 16)
+        public void annotated() {
+        }
+    }
+}
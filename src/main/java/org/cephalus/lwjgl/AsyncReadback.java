@@ -0,0 +1,133 @@
+package org.cephalus.lwjgl;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.lwjgl.opengl.GL11.glReadPixels;
+import static org.lwjgl.opengl.GL12.GL_BGRA;
+import static org.lwjgl.opengl.GL12.GL_UNSIGNED_INT_8_8_8_8_REV;
+import static org.lwjgl.opengl.GL15.GL_READ_ONLY;
+import static org.lwjgl.opengl.GL15.GL_STREAM_READ;
+import static org.lwjgl.opengl.GL15.glBindBuffer;
+import static org.lwjgl.opengl.GL15.glBufferData;
+import static org.lwjgl.opengl.GL15.glDeleteBuffers;
+import static org.lwjgl.opengl.GL15.glGenBuffers;
+import static org.lwjgl.opengl.GL15.glMapBuffer;
+import static org.lwjgl.opengl.GL15.glUnmapBuffer;
+import static org.lwjgl.opengl.GL21.GL_PIXEL_PACK_BUFFER;
+import static org.lwjgl.opengl.GL30.GL_READ_FRAMEBUFFER;
+import static org.lwjgl.opengl.GL30.glBindFramebuffer;
+
+/**
+ * Reads frames back through a ring of pixel pack buffers. {@link #capture()} only queues the transfer;
+ * a frame is mapped and handed to the consumer once the ring is full, while the following frames render.
+ * {@link #flush()} hands over every pending frame.
+ */
+public class AsyncReadback {
+
+    public interface FrameConsumer {
+        void accept(int frame, BufferedImage image) throws IOException;
+    }
+
+    private final int depth;
+    private final FrameConsumer consumer;
+
+    private int[] buffers;
+    private int[] sizes;
+    private int[] widths;
+    private int[] heights;
+    private int[] frames;
+    private int head;
+    private int pending;
+    private int captured;
+    private ByteBuffer mapped;
+
+    public AsyncReadback(int depth, FrameConsumer consumer) {
+        if (depth < 1)
+            throw new IllegalArgumentException("Readback depth must be at least 1: " + depth);
+        this.depth = depth;
+        this.consumer = consumer;
+    }
+
+    public void capture() throws IOException {
+        capture(captured);
+    }
+
+    /**
+     * Queues the transfer of the current frame, handed to the consumer as frame number {@code frame}.
+     */
+    public void capture(int frame) throws IOException {
+        if (buffers == null)
+            init();
+        if (pending == depth)
+            consumeOldest();
+
+        int slot = (head + pending) % depth;
+        ContextBackend backend = ContextBackends.current();
+        int width = backend.getWidth();
+        int height = backend.getHeight();
+        int size = width * height * 4;
+
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, buffers[slot]);
+        if (sizes[slot] != size) {
+            glBufferData(GL_PIXEL_PACK_BUFFER, size, GL_STREAM_READ);
+            sizes[slot] = size;
+        }
+        int previous = Recorder.bindForReading(backend);
+        glReadPixels(0, 0, width, height, GL_BGRA, GL_UNSIGNED_INT_8_8_8_8_REV, 0L);
+        glBindFramebuffer(GL_READ_FRAMEBUFFER, previous);
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+
+        widths[slot] = width;
+        heights[slot] = height;
+        frames[slot] = frame;
+        captured = frame + 1;
+        ++pending;
+    }
+
+    public void flush() throws IOException {
+        while (pending > 0)
+            consumeOldest();
+    }
+
+    public void dispose() {
+        if (buffers == null)
+            return;
+        for (int buffer : buffers)
+            glDeleteBuffers(buffer);
+        buffers = null;
+        pending = 0;
+    }
+
+    private void init() {
+        buffers = new int[depth];
+        sizes = new int[depth];
+        widths = new int[depth];
+        heights = new int[depth];
+        frames = new int[depth];
+        for (int i = 0; i < depth; ++i)
+            buffers[i] = glGenBuffers();
+    }
+
+    private void consumeOldest() throws IOException {
+        int slot = head;
+        head = (head + 1) % depth;
+        --pending;
+
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, buffers[slot]);
+        ByteBuffer buffer = glMapBuffer(GL_PIXEL_PACK_BUFFER, GL_READ_ONLY, sizes[slot], mapped);
+        if (buffer == null) {
+            glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+            throw new IllegalStateException("Could not map readback buffer " + slot + " of " + sizes[slot]
+                    + " bytes for frame " + frames[slot]);
+        }
+        mapped = buffer;
+        BufferedImage image = Recorder.toImage(mapped.order(ByteOrder.nativeOrder()).asIntBuffer(), widths[slot], heights[slot]);
+        glUnmapBuffer(GL_PIXEL_PACK_BUFFER);
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+
+        consumer.accept(frames[slot], image);
+    }
+}
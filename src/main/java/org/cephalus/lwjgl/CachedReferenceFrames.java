@@ -0,0 +1,63 @@
+package org.cephalus.lwjgl;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.OptionalLong;
+
+/**
+ * Reads reference frames through a {@link ReferenceFrameCache}, decoding only the frames it misses.
+ */
+public class CachedReferenceFrames implements ReferenceFrames {
+
+    private final ReferenceFrames source;
+    private final ReferenceFrameCache cache;
+    private final Class<?> owner;
+    private final String reference;
+
+    public CachedReferenceFrames(ReferenceFrames source, ReferenceFrameCache cache, Class<?> owner, String reference) {
+        this.source = source;
+        this.cache = cache;
+        this.owner = owner;
+        this.reference = reference;
+    }
+
+    @Override
+    public int size() {
+        return source.size();
+    }
+
+    @Override
+    public String name(int index) {
+        return source.name(index);
+    }
+
+    @Override
+    public OptionalLong hash(int index) {
+        return source.hash(index);
+    }
+
+    @Override
+    public int tileSize() {
+        return source.tileSize();
+    }
+
+    @Override
+    public long[] changedTiles(int index) throws IOException {
+        return source.changedTiles(index);
+    }
+
+    @Override
+    public BufferedImage read(int index) throws IOException {
+        BufferedImage image = cache.get(owner, reference, index);
+        if (image == null) {
+            image = source.read(index);
+            cache.put(owner, reference, index, image);
+        }
+        return image;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
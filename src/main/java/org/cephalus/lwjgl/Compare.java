@@ -7,4 +7,48 @@ import java.lang.annotation.RetentionPolicy;
 public @interface Compare {
     String reference() default "";
     float maxDivergence() default 0.01f;
+
+    /**
+     * Frames with at least this many pixels are compared in parallel. Zero or less disables it.
+     */
+    int parallelThreshold() default 1 << 20;
+
+    /**
+     * Number of pixel pack buffers used to read frames back asynchronously. Zero reads every frame synchronously.
+     */
+    int asyncReadback() default 0;
+
+    /**
+     * Number of reference frames decoded ahead on a background thread started for the test. Zero, the default,
+     * decodes each frame when it is compared.
+     */
+    int prefetch() default 0;
+
+    /**
+     * Compares every Nth iteration, starting with the first one, and the last one.
+     */
+    int every() default 1;
+
+    /**
+     * Iterations to compare, counted from 0. Takes precedence over {@link #every()} and {@link #sample()}.
+     */
+    int[] frames() default {};
+
+    /**
+     * Number of iterations compared, picked at random with {@link #seed()}. Takes precedence over {@link #every()}.
+     */
+    int sample() default 0;
+
+    long seed() default 0;
+
+    /**
+     * Where the divergence is computed. {@link Backend#GPU} needs an OpenGL 3.2 context and only reads the frame
+     * back when it fails; it does not use {@link #asyncReadback()} and compares thumbnail references on the CPU.
+     */
+    Backend backend() default Backend.CPU;
+
+    enum Backend {
+        CPU
+        , GPU
+    }
 }
@@ -0,0 +1,38 @@
+package org.cephalus.lwjgl;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Outcome of {@link ImageComparator#compare}. When the comparison failed early, {@link #getDivergence()}
+ * is only a lower bound that already exceeds the threshold.
+ */
+public class Comparison {
+
+    private final BufferedImage expected;
+    private final BufferedImage actual;
+    private final float divergence;
+    private final boolean passed;
+
+    private BufferedImage diff;
+
+    Comparison(BufferedImage expected, BufferedImage actual, float divergence, boolean passed) {
+        this.expected = expected;
+        this.actual = actual;
+        this.divergence = divergence;
+        this.passed = passed;
+    }
+
+    public float getDivergence() {
+        return divergence;
+    }
+
+    public boolean passed() {
+        return passed;
+    }
+
+    public BufferedImage getDifferenceImage() {
+        if (diff == null)
+            diff = ImageComparator.getDifferenceImage(expected, actual);
+        return diff;
+    }
+}
@@ -18,5 +18,7 @@ public @interface Configuration {
 
     int iterations() default 120;
 
+    int warmup() default 0;
+
     Swap.Type swap() default AUTO;
 }
@@ -0,0 +1,56 @@
+package org.cephalus.lwjgl;
+
+import org.lwjgl.LWJGLException;
+
+/**
+ * Creates and presents the GL context tests render to. The backend of the current thread is chosen by
+ * {@link ContextBackends#current()}.
+ */
+public interface ContextBackend {
+
+    /**
+     * Creates a core profile context ({@code 320} is OpenGL 3.2) and makes it current on the calling thread.
+     */
+    void create(int profile, int width, int height, String title) throws LWJGLException;
+
+    boolean isCreated();
+
+    int getProfile();
+
+    int getWidth();
+
+    int getHeight();
+
+    void resize(int width, int height) throws LWJGLException;
+
+    void setTitle(String title);
+
+    /**
+     * Framebuffer holding the rendered frame: 0 for a window, a framebuffer object for offscreen contexts.
+     */
+    int getFramebuffer();
+
+    /**
+     * Color buffer of {@link #getFramebuffer()} frames are rendered to and read from.
+     */
+    int getColorBuffer();
+
+    void swapBuffers() throws LWJGLException;
+
+    void sync(int fps);
+
+    /**
+     * Whether swapping buffers waits for the vertical blank. Backends that do not present frames ignore it.
+     */
+    default void setVSyncEnabled(boolean enabled) {
+    }
+
+    /**
+     * The last {@link #setVSyncEnabled(boolean)} setting.
+     */
+    default boolean isVSyncEnabled() {
+        return false;
+    }
+
+    void destroy();
+}
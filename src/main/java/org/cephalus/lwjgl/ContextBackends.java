@@ -0,0 +1,34 @@
+package org.cephalus.lwjgl;
+
+/**
+ * Selects the {@link ContextBackend} with {@code -Dlwjgl.junit.backend}: {@code display} (the default) opens a
+ * window, {@code pbuffer} renders offscreen (without a window, but still through an X server or WGL), and any
+ * other value is the name of a {@link ContextBackend} class with a public no argument constructor. Each thread gets
+ * its own instance.
+ */
+public class ContextBackends {
+
+    public static final String BACKEND_PROPERTY = "lwjgl.junit.backend";
+
+    private static final ThreadLocal<ContextBackend> current = ThreadLocal.withInitial(ContextBackends::create);
+
+    public static ContextBackend current() {
+        return current.get();
+    }
+
+    static ContextBackend create() {
+        String name = System.getProperty(BACKEND_PROPERTY, "display");
+        switch (name) {
+            case "display":
+                return new DisplayBackend();
+            case "pbuffer":
+                return new PbufferBackend();
+            default:
+                try {
+                    return Class.forName(name).asSubclass(ContextBackend.class).getConstructor().newInstance();
+                } catch (ReflectiveOperationException | ClassCastException ex) {
+                    throw new IllegalStateException("Invalid " + BACKEND_PROPERTY + ": " + name, ex);
+                }
+        }
+    }
+}
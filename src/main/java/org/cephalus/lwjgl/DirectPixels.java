@@ -0,0 +1,45 @@
+package org.cephalus.lwjgl;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DirectColorModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.nio.IntBuffer;
+
+/**
+ * Read-only image data backed by {@code 0xRRGGBB} pixels in a (usually direct) {@link IntBuffer}, top row first.
+ * {@link PixelRows} reads the buffer without going through the image.
+ */
+class DirectPixels extends DataBuffer {
+
+    private static final int[] MASKS = {0xFF0000, 0xFF00, 0xFF};
+
+    final IntBuffer pixels;
+    final int width;
+
+    private DirectPixels(IntBuffer pixels, int width, int height) {
+        super(TYPE_INT, width * height);
+        this.pixels = pixels;
+        this.width = width;
+    }
+
+    static BufferedImage image(IntBuffer pixels, int width, int height) {
+        SinglePixelPackedSampleModel model = new SinglePixelPackedSampleModel(TYPE_INT, width, height, MASKS);
+        // the raster factories only accept DataBufferInt for packed int pixels
+        WritableRaster raster = new WritableRaster(model, new DirectPixels(pixels, width, height), new Point()) {
+        };
+        return new BufferedImage(new DirectColorModel(24, MASKS[0], MASKS[1], MASKS[2]), raster, false, null);
+    }
+
+    @Override
+    public int getElem(int bank, int i) {
+        return pixels.get(i);
+    }
+
+    @Override
+    public void setElem(int bank, int i, int val) {
+        throw new UnsupportedOperationException("Read-only image");
+    }
+}
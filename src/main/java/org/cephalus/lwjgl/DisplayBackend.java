@@ -0,0 +1,99 @@
+package org.cephalus.lwjgl;
+
+import org.lwjgl.LWJGLException;
+import org.lwjgl.opengl.ContextAttribs;
+import org.lwjgl.opengl.Display;
+import org.lwjgl.opengl.DisplayMode;
+import org.lwjgl.opengl.PixelFormat;
+
+import static org.lwjgl.opengl.GL11.GL_BACK;
+
+/**
+ * Renders to the back buffer of the LWJGL {@link Display} window. There is a single Display per JVM.
+ */
+public class DisplayBackend implements ContextBackend {
+
+    // the Display has no getter for it, and keeps it across windows
+    private static boolean vSyncEnabled;
+
+    private int profile = -1;
+
+    @Override
+    public void create(int profile, int width, int height, String title) throws LWJGLException {
+        ContextAttribs contextAttributes = new ContextAttribs(profile / 100, profile % 100 / 10)
+                .withForwardCompatible(true)
+                .withProfileCore(true);
+
+        Display.setDisplayMode(new DisplayMode(width, height));
+        Display.setTitle(title);
+        Display.create(new PixelFormat(), contextAttributes);
+        this.profile = profile;
+    }
+
+    @Override
+    public boolean isCreated() {
+        return Display.isCreated();
+    }
+
+    @Override
+    public int getProfile() {
+        return profile;
+    }
+
+    @Override
+    public int getWidth() {
+        return Display.getDisplayMode().getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return Display.getDisplayMode().getHeight();
+    }
+
+    @Override
+    public void resize(int width, int height) throws LWJGLException {
+        Display.setDisplayMode(new DisplayMode(width, height));
+    }
+
+    @Override
+    public void setTitle(String title) {
+        Display.setTitle(title);
+    }
+
+    @Override
+    public int getFramebuffer() {
+        return 0;
+    }
+
+    @Override
+    public int getColorBuffer() {
+        return GL_BACK;
+    }
+
+    @Override
+    public void swapBuffers() throws LWJGLException {
+        Display.swapBuffers();
+    }
+
+    @Override
+    public void sync(int fps) {
+        Display.sync(fps);
+    }
+
+    @Override
+    public void setVSyncEnabled(boolean enabled) {
+        Display.setVSyncEnabled(enabled);
+        vSyncEnabled = enabled;
+    }
+
+    @Override
+    public boolean isVSyncEnabled() {
+        return vSyncEnabled;
+    }
+
+    @Override
+    public void destroy() {
+        Display.destroy();
+        profile = -1;
+    }
+}
@@ -0,0 +1,27 @@
+package org.cephalus.lwjgl;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.min;
+
+/**
+ * Sums the clamped per-pixel channel difference of two rows of packed {@code 0xRRGGBB} pixels.
+ */
+class DivergenceKernel {
+
+    static final DivergenceKernel SCALAR = new DivergenceKernel();
+
+    static final DivergenceKernel BEST = DivergenceKernels.load();
+
+    long sumRow(int[] row1, int offset1, int[] row2, int offset2, int width) {
+        long sum = 0;
+        for (int x = 0; x < width; ++x) {
+            int rgb1 = row1[offset1 + x];
+            int rgb2 = row2[offset2 + x];
+            int r = abs(((rgb1 >> 16) & 0xff) - ((rgb2 >> 16) & 0xff));
+            int g = abs(((rgb1 >> 8) & 0xff) - ((rgb2 >> 8) & 0xff));
+            int b = abs((rgb1 & 0xff) - (rgb2 & 0xff));
+            sum += min(r + g + b, 0xFF);
+        }
+        return sum;
+    }
+}
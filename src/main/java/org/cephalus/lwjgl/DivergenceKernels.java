@@ -0,0 +1,12 @@
+package org.cephalus.lwjgl;
+
+/**
+ * Selects the {@link DivergenceKernel} for the running JVM. Replaced by a SIMD aware version in
+ * {@code META-INF/versions} of the jar when built with JDK 16 or later.
+ */
+class DivergenceKernels {
+
+    static DivergenceKernel load() {
+        return DivergenceKernel.SCALAR;
+    }
+}
@@ -0,0 +1,116 @@
+package org.cephalus.lwjgl;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Encodes frames on a pool of worker threads and hands the encoded bytes to the sink in submission order,
+ * on the submitting thread. Submitting blocks on the oldest frame once {@code capacity} frames are pending.
+ * Frames that fail to encode are skipped and reported by {@link #close()}.
+ */
+class EncodingPipeline {
+
+    interface Sink {
+        void write(String name, byte[] data) throws IOException;
+    }
+
+    private static final AtomicInteger pools = new AtomicInteger();
+
+    private final ExecutorService workers;
+    private final int capacity;
+    private final String format;
+    private final Sink sink;
+    private final Deque<Pending> pending = new ArrayDeque<>();
+
+    private IOException error;
+
+    EncodingPipeline(int threads, int capacity, String format, Sink sink) {
+        if (threads < 1 || capacity < 1)
+            throw new IllegalArgumentException("Encoder threads and capacity must be at least 1");
+        this.workers = Executors.newFixedThreadPool(threads, daemonThreads("recorder-encoder-" + pools.incrementAndGet()));
+        this.capacity = capacity;
+        this.format = format;
+        this.sink = sink;
+    }
+
+    void submit(String name, BufferedImage image) throws IOException {
+        while (pending.size() >= capacity)
+            writeOldest();
+        pending.add(new Pending(name, workers.submit(() -> encode(image))));
+        while (!pending.isEmpty() && pending.peek().data.isDone())
+            writeOldest();
+    }
+
+    void close() throws IOException {
+        try {
+            while (!pending.isEmpty())
+                writeOldest();
+        } finally {
+            workers.shutdownNow();
+        }
+        if (error != null)
+            throw error;
+    }
+
+    /**
+     * Stops the workers without writing the frames still waiting.
+     */
+    void discard() {
+        workers.shutdownNow();
+    }
+
+    private byte[] encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    private void writeOldest() throws IOException {
+        Pending oldest = pending.poll();
+        byte[] data;
+        try {
+            data = oldest.data.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while encoding " + oldest.name);
+        } catch (ExecutionException ex) {
+            IOException failure = new IOException("Failed to encode " + oldest.name, ex.getCause());
+            if (error == null)
+                error = failure;
+            else
+                error.addSuppressed(failure);
+            return;
+        }
+        sink.write(oldest.name, data);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class Pending {
+        private final String name;
+        private final Future<byte[]> data;
+
+        Pending(String name, Future<byte[]> data) {
+            this.name = name;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.cephalus.lwjgl;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Converts PNG-in-zip recordings to {@link RawFrameArchive}s:
+ * {@code java org.cephalus.lwjgl.FrameArchiveConverter [--compress] source.zip... }
+ * writes {@code source.frames} next to each source.
+ */
+public class FrameArchiveConverter {
+
+    public static int convert(InputStream zip, File target, boolean compress) throws IOException {
+        int frames = 0;
+        try (ZipInputStream in = new ZipInputStream(zip)
+             ; RawFrameArchiveWriter out = new RawFrameArchiveWriter(target, compress)) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                if (entry.isDirectory() || !entry.getName().toLowerCase().endsWith(".png"))
+                    continue;
+                BufferedImage image = ImageIO.read(in);
+                if (image == null)
+                    throw new IOException("Not an image: " + entry.getName());
+                out.write(image);
+                ++frames;
+            }
+        }
+        return frames;
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean compress = false;
+        for (String arg : args) {
+            if ("--compress".equals(arg)) {
+                compress = true;
+                continue;
+            }
+            File source = new File(arg);
+            File target = new File(source.getParentFile(), ZipReferenceFrames.stripExtension(source.getName()) + RawFrameArchive.EXTENSION);
+            int frames;
+            try (InputStream in = new FileInputStream(source)) {
+                frames = convert(in, target, compress);
+            }
+            System.out.println(String.format("%s: %d frames -> %s", source, frames, target));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.cephalus.lwjgl;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Fails the test when its {@link FrameTimings.Phase#FRAME frame times} exceed the budget. Limits are in
+ * milliseconds; zero leaves a limit unchecked.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+public @interface FrameBudget {
+    float p95() default 0;
+    float p99() default 0;
+    float mean() default 0;
+
+    /**
+     * Minimum frame rate sustained over all iterations, that is the number of frames per second of frame time.
+     */
+    float minFps() default 0;
+}
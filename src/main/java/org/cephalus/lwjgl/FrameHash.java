@@ -0,0 +1,58 @@
+package org.cephalus.lwjgl;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Fast 64-bit hash of the {@code 0xRRGGBB} content of a frame, used to recognize frames identical to their
+ * reference without decoding it. Alpha and the image type do not change the hash.
+ */
+public class FrameHash {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    public static long of(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        long hash = ((long) width << 32) | height;
+
+        PixelRows rows = PixelRows.of(image);
+        for (int y = 0; y < height; ++y)
+            hash = mixRow(hash, rows.row(y), rows.offset(y), width);
+        return finish(hash ^ ((long) width * height));
+    }
+
+    /**
+     * Mixes {@code width} pixels of a row into an unfinished hash.
+     */
+    static long mixRow(long hash, int[] row, int offset, int width) {
+        int x = 0;
+        for (; x + 1 < width; x += 2)
+            hash = mix(hash, (row[offset + x] & 0xFFFFFFL) | ((row[offset + x + 1] & 0xFFFFFFL) << 32));
+        if (x < width)
+            hash = mix(hash, row[offset + x] & 0xFFFFFFL);
+        return hash;
+    }
+
+    public static String toString(long hash) {
+        return String.format("%016x", hash);
+    }
+
+    public static long parse(String hash) {
+        return Long.parseUnsignedLong(hash.trim(), 16);
+    }
+
+    private static long mix(long hash, long value) {
+        long k = Long.rotateLeft(value * C1, 31) * C2;
+        return Long.rotateLeft(hash ^ k, 27) * 5 + 0x52dce729;
+    }
+
+    private static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,77 @@
+package org.cephalus.lwjgl;
+
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Selects the iterations of a test loop that are compared with the reference. Iterations are counted from 0,
+ * like reference frames.
+ */
+public class FrameSampling {
+
+    public static final FrameSampling ALL = new FrameSampling(null);
+
+    private final BitSet frames;
+
+    private FrameSampling(BitSet frames) {
+        this.frames = frames;
+    }
+
+    /**
+     * Every {@code n}th iteration starting with the first one, and the last one.
+     */
+    public static FrameSampling every(int n, int iterations) {
+        if (n < 1)
+            throw new IllegalArgumentException("Sampling interval must be at least 1: " + n);
+        if (n == 1)
+            return ALL;
+        BitSet frames = new BitSet(iterations);
+        for (int i = 0; i < iterations; i += n)
+            frames.set(i);
+        if (iterations > 0)
+            frames.set(iterations - 1);
+        return new FrameSampling(frames);
+    }
+
+    public static FrameSampling of(int... indexes) {
+        BitSet frames = new BitSet();
+        for (int index : indexes) {
+            if (index < 0)
+                throw new IllegalArgumentException("Negative frame index: " + index);
+            frames.set(index);
+        }
+        return new FrameSampling(frames);
+    }
+
+    /**
+     * {@code count} distinct iterations picked at random, always the same ones for a given seed.
+     */
+    public static FrameSampling random(int count, long seed, int iterations) {
+        if (count >= iterations)
+            return ALL;
+        Random random = new Random(seed);
+        BitSet frames = new BitSet(iterations);
+        // Floyd's algorithm: one random number per picked frame
+        for (int j = iterations - count; j < iterations; ++j) {
+            int pick = random.nextInt(j + 1);
+            frames.set(frames.get(pick) ? j : pick);
+        }
+        return new FrameSampling(frames);
+    }
+
+    public boolean includes(int index) {
+        return frames == null || frames.get(index);
+    }
+
+    /**
+     * First compared iteration from {@code index} on, or -1.
+     */
+    public int next(int index) {
+        return frames == null ? index : frames.nextSetBit(index);
+    }
+
+    @Override
+    public String toString() {
+        return frames == null ? "all" : frames.toString();
+    }
+}
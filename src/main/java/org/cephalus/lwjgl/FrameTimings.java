@@ -0,0 +1,223 @@
+package org.cephalus.lwjgl;
+
+import org.junit.runner.Description;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Durations of the phases of every iteration of a test method. The runner records them in histograms reused
+ * between the tests of a thread, and {@link #publish(Description) publishes} a {@link Report} once the test
+ * method is done, before it notifies that the test finished: rules can read it after evaluating the test, and
+ * run listeners from {@code testFinished}. The runner {@link #release(Description) releases} it afterwards.
+ */
+public class FrameTimings {
+
+    public enum Phase {
+        INVOKE
+        , COMPARE
+        , SWAP
+        , SYNC
+        /**
+         * GPU time of the test method, measured with {@link GpuTimed}.
+         */
+        , GPU
+        /**
+         * Time of the iteration without the comparison and the frame rate wait: the test method and the swap.
+         */
+        , FRAME
+    }
+
+    public static final String PRINT_PROPERTY = "lwjgl.junit.timings";
+
+    private static final Map<Description, Report> reports = new ConcurrentHashMap<>();
+    private static final ThreadLocal<FrameTimings> current = ThreadLocal.withInitial(FrameTimings::new);
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Phase.values().length];
+
+    public FrameTimings() {
+        for (int i = 0; i < histograms.length; ++i)
+            histograms[i] = new LatencyHistogram();
+    }
+
+    /**
+     * Timings of the current thread, reset.
+     */
+    public static FrameTimings start() {
+        FrameTimings timings = current.get();
+        for (LatencyHistogram histogram : timings.histograms)
+            histogram.reset();
+        return timings;
+    }
+
+    /**
+     * Records the time elapsed since {@code since}, a {@link System#nanoTime()}, and returns the current time.
+     */
+    public long record(Phase phase, long since) {
+        long now = System.nanoTime();
+        histograms[phase.ordinal()].record(now - since);
+        return now;
+    }
+
+    public LatencyHistogram get(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    public Report publish(Description description) {
+        Map<Phase, Statistics> phases = new EnumMap<>(Phase.class);
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = get(phase);
+            if (histogram.getCount() > 0)
+                phases.put(phase, new Statistics(histogram));
+        }
+        Report report = new Report(description, phases);
+        reports.put(description, report);
+        return report;
+    }
+
+    /**
+     * Whether the runner prints the reports to the console, unless {@value #PRINT_PROPERTY} is false.
+     */
+    public static boolean isPrintEnabled() {
+        return !"false".equalsIgnoreCase(System.getProperty(PRINT_PROPERTY));
+    }
+
+    /**
+     * The report of a test method that is finishing, or null.
+     */
+    public static Report of(Description description) {
+        return reports.get(description);
+    }
+
+    /**
+     * Forgets the report of a test method, once every listener was notified that it finished.
+     */
+    public static void release(Description description) {
+        reports.remove(description);
+    }
+
+    public static class Report {
+        private final Description description;
+        private final Map<Phase, Statistics> phases;
+
+        Report(Description description, Map<Phase, Statistics> phases) {
+            this.description = description;
+            this.phases = Collections.unmodifiableMap(phases);
+        }
+
+        public Description getDescription() {
+            return description;
+        }
+
+        /**
+         * Statistics of the phases that ran at least once.
+         */
+        public Map<Phase, Statistics> getPhases() {
+            return phases;
+        }
+
+        public Statistics get(Phase phase) {
+            return phases.get(phase);
+        }
+
+        /**
+         * Throws an assertion error listing every limit of the budget the frame times exceed, followed by this report.
+         */
+        public void assertWithin(FrameBudget budget) {
+            Statistics frames = phases.get(Phase.FRAME);
+            if (frames == null)
+                return;
+            StringBuilder violations = new StringBuilder();
+            checkLimit(violations, "p95", frames.getP95(), budget.p95());
+            checkLimit(violations, "p99", frames.getP99(), budget.p99());
+            checkLimit(violations, "mean", frames.getMean(), budget.mean());
+            double fps = frames.getMean() > 0 ? 1e9 / frames.getMean() : Double.POSITIVE_INFINITY;
+            if (budget.minFps() > 0 && fps < budget.minFps())
+                violations.append(String.format("%n  fps %.1f < %.1f", fps, budget.minFps()));
+            if (violations.length() > 0)
+                throw new AssertionError("Frame budget exceeded over " + frames.getCount() + " frames:"
+                        + violations + System.lineSeparator() + this);
+        }
+
+        private static void checkLimit(StringBuilder violations, String name, double nanos, float limit) {
+            if (limit > 0 && nanos / 1e6 > limit)
+                violations.append(String.format("%n  %s %.3f ms > %.3f ms", name, nanos / 1e6, limit));
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(description.getDisplayName())
+                    .append(String.format("%n  %-10s %8s %9s %9s %9s %9s %9s %9s", "phase (ms)", "count", "min", "mean", "p50", "p95", "p99", "max"));
+            for (Map.Entry<Phase, Statistics> entry : phases.entrySet()) {
+                Statistics statistics = entry.getValue();
+                text.append(String.format("%n  %-10s %8d %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f"
+                        , entry.getKey().name().toLowerCase()
+                        , statistics.getCount()
+                        , millis(statistics.getMin())
+                        , statistics.getMean() / 1e6
+                        , millis(statistics.getP50())
+                        , millis(statistics.getP95())
+                        , millis(statistics.getP99())
+                        , millis(statistics.getMax())));
+            }
+            return text.toString();
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+
+    /**
+     * Durations in nanoseconds.
+     */
+    public static class Statistics {
+        private final long count;
+        private final long min;
+        private final double mean;
+        private final long p50;
+        private final long p95;
+        private final long p99;
+        private final long max;
+
+        Statistics(LatencyHistogram histogram) {
+            count = histogram.getCount();
+            min = histogram.getMin();
+            mean = histogram.getMean();
+            p50 = histogram.getPercentile(50);
+            p95 = histogram.getPercentile(95);
+            p99 = histogram.getPercentile(99);
+            max = histogram.getMax();
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMin() {
+            return min;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP95() {
+            return p95;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getMax() {
+            return max;
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package org.cephalus.lwjgl;
+
+import org.lwjgl.BufferUtils;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.lwjgl.opengl.GL11.GL_BLEND;
+import static org.lwjgl.opengl.GL11.GL_COLOR_WRITEMASK;
+import static org.lwjgl.opengl.GL11.GL_CULL_FACE;
+import static org.lwjgl.opengl.GL11.GL_DEPTH_TEST;
+import static org.lwjgl.opengl.GL11.GL_FALSE;
+import static org.lwjgl.opengl.GL11.GL_NEAREST;
+import static org.lwjgl.opengl.GL11.GL_PACK_ALIGNMENT;
+import static org.lwjgl.opengl.GL11.GL_PACK_ROW_LENGTH;
+import static org.lwjgl.opengl.GL11.GL_PACK_SKIP_PIXELS;
+import static org.lwjgl.opengl.GL11.GL_PACK_SKIP_ROWS;
+import static org.lwjgl.opengl.GL11.GL_READ_BUFFER;
+import static org.lwjgl.opengl.GL11.GL_RGBA;
+import static org.lwjgl.opengl.GL11.GL_RGBA8;
+import static org.lwjgl.opengl.GL11.GL_SCISSOR_TEST;
+import static org.lwjgl.opengl.GL11.GL_STENCIL_TEST;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_2D;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_BINDING_2D;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_MAG_FILTER;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_MIN_FILTER;
+import static org.lwjgl.opengl.GL11.GL_TRIANGLES;
+import static org.lwjgl.opengl.GL11.GL_UNPACK_ALIGNMENT;
+import static org.lwjgl.opengl.GL11.GL_UNPACK_ROW_LENGTH;
+import static org.lwjgl.opengl.GL11.GL_UNPACK_SKIP_PIXELS;
+import static org.lwjgl.opengl.GL11.GL_UNPACK_SKIP_ROWS;
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_BYTE;
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_INT;
+import static org.lwjgl.opengl.GL11.GL_VIEWPORT;
+import static org.lwjgl.opengl.GL11.glBindTexture;
+import static org.lwjgl.opengl.GL11.glColorMask;
+import static org.lwjgl.opengl.GL11.glCopyTexSubImage2D;
+import static org.lwjgl.opengl.GL11.glDeleteTextures;
+import static org.lwjgl.opengl.GL11.glDisable;
+import static org.lwjgl.opengl.GL11.glDrawArrays;
+import static org.lwjgl.opengl.GL11.glEnable;
+import static org.lwjgl.opengl.GL11.glGenTextures;
+import static org.lwjgl.opengl.GL11.glGetBoolean;
+import static org.lwjgl.opengl.GL11.glGetInteger;
+import static org.lwjgl.opengl.GL11.glGetTexImage;
+import static org.lwjgl.opengl.GL11.glIsEnabled;
+import static org.lwjgl.opengl.GL11.glPixelStorei;
+import static org.lwjgl.opengl.GL11.glReadBuffer;
+import static org.lwjgl.opengl.GL11.glTexImage2D;
+import static org.lwjgl.opengl.GL11.glTexParameteri;
+import static org.lwjgl.opengl.GL11.glTexSubImage2D;
+import static org.lwjgl.opengl.GL11.glViewport;
+import static org.lwjgl.opengl.GL12.GL_BGRA;
+import static org.lwjgl.opengl.GL12.GL_UNSIGNED_INT_8_8_8_8_REV;
+import static org.lwjgl.opengl.GL13.GL_ACTIVE_TEXTURE;
+import static org.lwjgl.opengl.GL13.GL_TEXTURE0;
+import static org.lwjgl.opengl.GL13.glActiveTexture;
+import static org.lwjgl.opengl.GL15.glBindBuffer;
+import static org.lwjgl.opengl.GL20.GL_COMPILE_STATUS;
+import static org.lwjgl.opengl.GL20.GL_CURRENT_PROGRAM;
+import static org.lwjgl.opengl.GL20.GL_FRAGMENT_SHADER;
+import static org.lwjgl.opengl.GL20.GL_LINK_STATUS;
+import static org.lwjgl.opengl.GL20.GL_VERTEX_SHADER;
+import static org.lwjgl.opengl.GL20.glAttachShader;
+import static org.lwjgl.opengl.GL20.glCompileShader;
+import static org.lwjgl.opengl.GL20.glCreateProgram;
+import static org.lwjgl.opengl.GL20.glCreateShader;
+import static org.lwjgl.opengl.GL20.glDeleteProgram;
+import static org.lwjgl.opengl.GL20.glDeleteShader;
+import static org.lwjgl.opengl.GL20.glGetProgramInfoLog;
+import static org.lwjgl.opengl.GL20.glGetProgrami;
+import static org.lwjgl.opengl.GL20.glGetShaderInfoLog;
+import static org.lwjgl.opengl.GL20.glGetShaderi;
+import static org.lwjgl.opengl.GL20.glGetUniformLocation;
+import static org.lwjgl.opengl.GL20.glLinkProgram;
+import static org.lwjgl.opengl.GL20.glShaderSource;
+import static org.lwjgl.opengl.GL20.glUniform1i;
+import static org.lwjgl.opengl.GL20.glUseProgram;
+import static org.lwjgl.opengl.GL21.GL_PIXEL_PACK_BUFFER;
+import static org.lwjgl.opengl.GL21.GL_PIXEL_PACK_BUFFER_BINDING;
+import static org.lwjgl.opengl.GL21.GL_PIXEL_UNPACK_BUFFER;
+import static org.lwjgl.opengl.GL21.GL_PIXEL_UNPACK_BUFFER_BINDING;
+import static org.lwjgl.opengl.GL30.GL_COLOR_ATTACHMENT0;
+import static org.lwjgl.opengl.GL30.GL_DRAW_FRAMEBUFFER;
+import static org.lwjgl.opengl.GL30.GL_DRAW_FRAMEBUFFER_BINDING;
+import static org.lwjgl.opengl.GL30.GL_FRAMEBUFFER;
+import static org.lwjgl.opengl.GL30.GL_R32UI;
+import static org.lwjgl.opengl.GL30.GL_RASTERIZER_DISCARD;
+import static org.lwjgl.opengl.GL30.GL_READ_FRAMEBUFFER;
+import static org.lwjgl.opengl.GL30.GL_READ_FRAMEBUFFER_BINDING;
+import static org.lwjgl.opengl.GL30.GL_RED_INTEGER;
+import static org.lwjgl.opengl.GL30.GL_VERTEX_ARRAY_BINDING;
+import static org.lwjgl.opengl.GL30.glBindFragDataLocation;
+import static org.lwjgl.opengl.GL30.glBindFramebuffer;
+import static org.lwjgl.opengl.GL30.glBindVertexArray;
+import static org.lwjgl.opengl.GL30.glDeleteFramebuffers;
+import static org.lwjgl.opengl.GL30.glDeleteVertexArrays;
+import static org.lwjgl.opengl.GL30.glFramebufferTexture2D;
+import static org.lwjgl.opengl.GL30.glGenFramebuffers;
+import static org.lwjgl.opengl.GL30.glGenVertexArrays;
+
+/**
+ * Compares the rendered frame with a reference frame on the GPU. The reference is uploaded to a texture, a first
+ * pass writes the clamped per pixel difference of {@link ImageComparator#calculateDivergence} to an integer
+ * texture, and further passes add up blocks of 4x4 texels until at most {@link #MASK_TEXELS} remain. Only
+ * that coarse mask is read back; the frame itself is read back only when the comparison fails.
+ * <p>
+ * Requires an OpenGL 3.2 context. The GL state touched by the passes is restored afterwards.
+ */
+public class GpuComparator {
+
+    public static final int MASK_TEXELS = 1024;
+
+    private static final String VERTEX = "#version 150\n"
+            + "void main() {\n"
+            + "    vec2 position = vec2((gl_VertexID << 1) & 2, gl_VertexID & 2);\n"
+            + "    gl_Position = vec4(position * 2.0 - 1.0, 0.0, 1.0);\n"
+            + "}\n";
+
+    private static final String DIFFERENCE = "#version 150\n"
+            + "uniform sampler2D actual;\n"
+            + "uniform sampler2D expected;\n"
+            + "out uvec4 difference;\n"
+            + "void main() {\n"
+            + "    ivec2 p = ivec2(gl_FragCoord.xy);\n"
+            + "    ivec2 size = textureSize(expected, 0);\n"
+            + "    ivec3 a = ivec3(texelFetch(actual, p, 0).rgb * 255.0 + 0.5);\n"
+            + "    ivec3 e = ivec3(texelFetch(expected, ivec2(p.x, size.y - 1 - p.y), 0).rgb * 255.0 + 0.5);\n"
+            + "    ivec3 d = abs(a - e);\n"
+            + "    difference = uvec4(uint(min(d.r + d.g + d.b, 255)), 0u, 0u, 0u);\n"
+            + "}\n";
+
+    private static final String REDUCTION = "#version 150\n"
+            + "uniform usampler2D source;\n"
+            + "out uvec4 sum;\n"
+            + "void main() {\n"
+            + "    ivec2 size = textureSize(source, 0);\n"
+            + "    ivec2 base = ivec2(gl_FragCoord.xy) * 4;\n"
+            + "    ivec2 end = min(base + 4, size);\n"
+            + "    uint total = 0u;\n"
+            + "    for (int y = base.y; y < end.y; ++y)\n"
+            + "        for (int x = base.x; x < end.x; ++x)\n"
+            + "            total += texelFetch(source, ivec2(x, y), 0).r;\n"
+            + "    sum = uvec4(total, 0u, 0u, 0u);\n"
+            + "}\n";
+
+    private int differenceProgram;
+    private int reductionProgram;
+    private int vao;
+    private int framebuffer;
+
+    private int width;
+    private int height;
+    private int actualTexture;
+    private int expectedTexture;
+    private int[] levels;
+    private int[] levelWidths;
+    private int[] levelHeights;
+    private IntBuffer upload;
+    private IntBuffer mask;
+
+    private final IntBuffer viewport = BufferUtils.createIntBuffer(16);
+    private final ByteBuffer colorMask = BufferUtils.createByteBuffer(16);
+
+    /**
+     * Compares the frame rendered in the current context with {@code expected}. The {@link Comparison} of a frame that
+     * passes has no difference image.
+     */
+    public Comparison compare(BufferedImage expected, float maxDivergence) {
+        int width = expected.getWidth();
+        int height = expected.getHeight();
+        ContextBackend backend = ContextBackends.current();
+        assertEquals("Different dimensions", new Dimension(width, height)
+                , new Dimension(backend.getWidth(), backend.getHeight()));
+
+        long sum;
+        State state = State.save(viewport, colorMask);
+        try {
+            if (differenceProgram == 0)
+                init();
+            if (width != this.width || height != this.height)
+                resize(width, height);
+            uploadReference(expected);
+            copyFrame(backend);
+            difference();
+            reduce();
+            sum = readMask();
+        } finally {
+            state.restore(viewport, colorMask);
+        }
+
+        float divergence = sum / (float) (0xFFL * width * height);
+        if (divergence <= maxDivergence)
+            return new Comparison(expected, null, divergence, true);
+        return new Comparison(expected, Recorder.takeSnapshot(), divergence, false);
+    }
+
+    /**
+     * Sums of the clamped differences of blocks of the last compared frame, bottom row first.
+     */
+    public IntBuffer getMask() {
+        return mask.asReadOnlyBuffer();
+    }
+
+    public int getMaskWidth() {
+        return levelWidths[levelWidths.length - 1];
+    }
+
+    public int getMaskHeight() {
+        return levelHeights[levelHeights.length - 1];
+    }
+
+    public void dispose() {
+        deleteTextures();
+        if (differenceProgram != 0) {
+            glDeleteProgram(differenceProgram);
+            glDeleteProgram(reductionProgram);
+            glDeleteVertexArrays(vao);
+            glDeleteFramebuffers(framebuffer);
+            differenceProgram = 0;
+        }
+    }
+
+    private void init() {
+        differenceProgram = program(DIFFERENCE, "difference");
+        reductionProgram = program(REDUCTION, "sum");
+        glUseProgram(differenceProgram);
+        glUniform1i(glGetUniformLocation(differenceProgram, "actual"), 0);
+        glUniform1i(glGetUniformLocation(differenceProgram, "expected"), 1);
+        glUseProgram(reductionProgram);
+        glUniform1i(glGetUniformLocation(reductionProgram, "source"), 0);
+        vao = glGenVertexArrays();
+        framebuffer = glGenFramebuffers();
+    }
+
+    private void resize(int width, int height) {
+        deleteTextures();
+        this.width = width;
+        this.height = height;
+
+        int count = 1;
+        for (int w = width, h = height; (long) w * h > MASK_TEXELS; w = (w + 3) / 4, h = (h + 3) / 4)
+            ++count;
+        levels = new int[count];
+        levelWidths = new int[count];
+        levelHeights = new int[count];
+
+        actualTexture = texture(GL_RGBA8, GL_RGBA, GL_UNSIGNED_BYTE, width, height);
+        expectedTexture = texture(GL_RGBA8, GL_RGBA, GL_UNSIGNED_BYTE, width, height);
+        for (int i = 0, w = width, h = height; i < count; ++i, w = (w + 3) / 4, h = (h + 3) / 4) {
+            levels[i] = texture(GL_R32UI, GL_RED_INTEGER, GL_UNSIGNED_INT, w, h);
+            levelWidths[i] = w;
+            levelHeights[i] = h;
+        }
+
+        upload = BufferUtils.createIntBuffer(width * height);
+        mask = BufferUtils.createIntBuffer(getMaskWidth() * getMaskHeight());
+    }
+
+    private void uploadReference(BufferedImage expected) {
+        upload.clear();
+        PixelRows rows = PixelRows.of(expected);
+        for (int y = 0; y < height; ++y)
+            upload.put(rows.row(y), rows.offset(y), width);
+        upload.flip();
+
+        glBindBuffer(GL_PIXEL_UNPACK_BUFFER, 0);
+        glPixelStorei(GL_UNPACK_ALIGNMENT, 4);
+        glActiveTexture(GL_TEXTURE0 + 1);
+        glBindTexture(GL_TEXTURE_2D, expectedTexture);
+        glTexSubImage2D(GL_TEXTURE_2D, 0, 0, 0, width, height, GL_BGRA, GL_UNSIGNED_INT_8_8_8_8_REV, upload);
+    }
+
+    private void copyFrame(ContextBackend backend) {
+        glBindFramebuffer(GL_READ_FRAMEBUFFER, backend.getFramebuffer());
+        glReadBuffer(backend.getColorBuffer());
+        glActiveTexture(GL_TEXTURE0);
+        glBindTexture(GL_TEXTURE_2D, actualTexture);
+        glCopyTexSubImage2D(GL_TEXTURE_2D, 0, 0, 0, 0, 0, width, height);
+    }
+
+    private void difference() {
+        glBindFramebuffer(GL_FRAMEBUFFER, framebuffer);
+        glBindVertexArray(vao);
+        glUseProgram(differenceProgram);
+        draw(levels[0], levelWidths[0], levelHeights[0]);
+    }
+
+    private void reduce() {
+        glUseProgram(reductionProgram);
+        glActiveTexture(GL_TEXTURE0);
+        for (int i = 1; i < levels.length; ++i) {
+            glBindTexture(GL_TEXTURE_2D, levels[i - 1]);
+            draw(levels[i], levelWidths[i], levelHeights[i]);
+        }
+    }
+
+    private void draw(int target, int width, int height) {
+        glFramebufferTexture2D(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_TEXTURE_2D, target, 0);
+        glViewport(0, 0, width, height);
+        glDrawArrays(GL_TRIANGLES, 0, 3);
+    }
+
+    private long readMask() {
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+        glPixelStorei(GL_PACK_ALIGNMENT, 4);
+        glBindTexture(GL_TEXTURE_2D, levels[levels.length - 1]);
+        mask.clear();
+        glGetTexImage(GL_TEXTURE_2D, 0, GL_RED_INTEGER, GL_UNSIGNED_INT, mask);
+
+        long sum = 0;
+        for (int i = 0; i < mask.capacity(); ++i)
+            sum += mask.get(i) & 0xFFFFFFFFL;
+        return sum;
+    }
+
+    private static int texture(int internalFormat, int format, int type, int width, int height) {
+        int texture = glGenTextures();
+        glBindTexture(GL_TEXTURE_2D, texture);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+        glTexImage2D(GL_TEXTURE_2D, 0, internalFormat, width, height, 0, format, type, (IntBuffer) null);
+        return texture;
+    }
+
+    private void deleteTextures() {
+        if (levels == null)
+            return;
+        glDeleteTextures(actualTexture);
+        glDeleteTextures(expectedTexture);
+        for (int level : levels)
+            glDeleteTextures(level);
+        levels = null;
+        width = height = 0;
+    }
+
+    private static int program(String fragmentSource, String output) {
+        int vertex = shader(VERTEX, GL_VERTEX_SHADER);
+        int fragment = shader(fragmentSource, GL_FRAGMENT_SHADER);
+        int program = glCreateProgram();
+        glAttachShader(program, vertex);
+        glAttachShader(program, fragment);
+        glBindFragDataLocation(program, 0, output);
+        glLinkProgram(program);
+        glDeleteShader(vertex);
+        glDeleteShader(fragment);
+        if (glGetProgrami(program, GL_LINK_STATUS) == GL_FALSE) {
+            String log = glGetProgramInfoLog(program, 1024);
+            glDeleteProgram(program);
+            throw new IllegalStateException(log);
+        }
+        return program;
+    }
+
+    private static int shader(String source, int type) {
+        int shader = glCreateShader(type);
+        glShaderSource(shader, source);
+        glCompileShader(shader);
+        if (glGetShaderi(shader, GL_COMPILE_STATUS) == GL_FALSE) {
+            String log = glGetShaderInfoLog(shader, 1024);
+            glDeleteShader(shader);
+            throw new IllegalStateException(log);
+        }
+        return shader;
+    }
+
+    /**
+     * GL state changed by the comparison passes, or that would keep them from writing and reading every pixel.
+     */
+    private static class State {
+        private static final int[] CAPABILITIES = {GL_BLEND, GL_CULL_FACE, GL_DEPTH_TEST, GL_SCISSOR_TEST, GL_STENCIL_TEST,
+                GL_RASTERIZER_DISCARD};
+        private static final int[] PIXEL_STORE = {GL_PACK_ROW_LENGTH, GL_PACK_SKIP_PIXELS, GL_PACK_SKIP_ROWS,
+                GL_UNPACK_ROW_LENGTH, GL_UNPACK_SKIP_PIXELS, GL_UNPACK_SKIP_ROWS};
+
+        private final int drawFramebuffer = glGetInteger(GL_DRAW_FRAMEBUFFER_BINDING);
+        private final int readFramebuffer = glGetInteger(GL_READ_FRAMEBUFFER_BINDING);
+        private final int readBuffer = glGetInteger(GL_READ_BUFFER);
+        private final int program = glGetInteger(GL_CURRENT_PROGRAM);
+        private final int vertexArray = glGetInteger(GL_VERTEX_ARRAY_BINDING);
+        private final int activeTexture = glGetInteger(GL_ACTIVE_TEXTURE);
+        private final int[] textures = new int[2];
+        private final int packBuffer = glGetInteger(GL_PIXEL_PACK_BUFFER_BINDING);
+        private final int unpackBuffer = glGetInteger(GL_PIXEL_UNPACK_BUFFER_BINDING);
+        private final int packAlignment = glGetInteger(GL_PACK_ALIGNMENT);
+        private final int unpackAlignment = glGetInteger(GL_UNPACK_ALIGNMENT);
+        private final boolean[] enabled = new boolean[CAPABILITIES.length];
+        private final int[] pixelStore = new int[PIXEL_STORE.length];
+
+        static State save(IntBuffer viewport, ByteBuffer colorMask) {
+            State state = new State();
+            for (int unit = 0; unit < state.textures.length; ++unit) {
+                glActiveTexture(GL_TEXTURE0 + unit);
+                state.textures[unit] = glGetInteger(GL_TEXTURE_BINDING_2D);
+            }
+            for (int i = 0; i < CAPABILITIES.length; ++i) {
+                state.enabled[i] = glIsEnabled(CAPABILITIES[i]);
+                glDisable(CAPABILITIES[i]);
+            }
+            for (int i = 0; i < PIXEL_STORE.length; ++i) {
+                state.pixelStore[i] = glGetInteger(PIXEL_STORE[i]);
+                glPixelStorei(PIXEL_STORE[i], 0);
+            }
+            colorMask.clear();
+            glGetBoolean(GL_COLOR_WRITEMASK, colorMask);
+            glColorMask(true, true, true, true);
+            viewport.clear();
+            glGetInteger(GL_VIEWPORT, viewport);
+            return state;
+        }
+
+        void restore(IntBuffer viewport, ByteBuffer colorMask) {
+            for (int i = 0; i < CAPABILITIES.length; ++i)
+                if (enabled[i])
+                    glEnable(CAPABILITIES[i]);
+            for (int i = 0; i < PIXEL_STORE.length; ++i)
+                glPixelStorei(PIXEL_STORE[i], pixelStore[i]);
+            glColorMask(colorMask.get(0) != 0, colorMask.get(1) != 0, colorMask.get(2) != 0, colorMask.get(3) != 0);
+            glViewport(viewport.get(0), viewport.get(1), viewport.get(2), viewport.get(3));
+            for (int unit = 0; unit < textures.length; ++unit) {
+                glActiveTexture(GL_TEXTURE0 + unit);
+                glBindTexture(GL_TEXTURE_2D, textures[unit]);
+            }
+            glActiveTexture(activeTexture);
+            glPixelStorei(GL_PACK_ALIGNMENT, packAlignment);
+            glPixelStorei(GL_UNPACK_ALIGNMENT, unpackAlignment);
+            glBindBuffer(GL_PIXEL_PACK_BUFFER, packBuffer);
+            glBindBuffer(GL_PIXEL_UNPACK_BUFFER, unpackBuffer);
+            glBindVertexArray(vertexArray);
+            glUseProgram(program);
+            glBindFramebuffer(GL_DRAW_FRAMEBUFFER, drawFramebuffer);
+            glBindFramebuffer(GL_READ_FRAMEBUFFER, readFramebuffer);
+            glReadBuffer(readBuffer);
+        }
+    }
+}
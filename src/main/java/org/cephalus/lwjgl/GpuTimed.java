@@ -0,0 +1,18 @@
+package org.cephalus.lwjgl;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Measures the GPU time of the test method on every iteration with timer queries, reported as the
+ * {@link FrameTimings.Phase#GPU gpu} phase. Tests can not use {@code GL_TIME_ELAPSED} queries themselves.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+public @interface GpuTimed {
+
+    /**
+     * Number of queries allocated up front, about the number of frames the GPU runs behind.
+     * More are allocated when all of them are still pending.
+     */
+    int queries() default 4;
+}
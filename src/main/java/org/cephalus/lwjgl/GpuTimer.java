@@ -0,0 +1,122 @@
+package org.cephalus.lwjgl;
+
+import org.lwjgl.opengl.ARBTimerQuery;
+import org.lwjgl.opengl.ContextCapabilities;
+import org.lwjgl.opengl.GL33;
+import org.lwjgl.opengl.GLContext;
+
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL11.GL_TRUE;
+import static org.lwjgl.opengl.GL15.GL_QUERY_RESULT;
+import static org.lwjgl.opengl.GL15.GL_QUERY_RESULT_AVAILABLE;
+import static org.lwjgl.opengl.GL15.glBeginQuery;
+import static org.lwjgl.opengl.GL15.glDeleteQueries;
+import static org.lwjgl.opengl.GL15.glEndQuery;
+import static org.lwjgl.opengl.GL15.glGenQueries;
+import static org.lwjgl.opengl.GL15.glGetQueryObjecti;
+import static org.lwjgl.opengl.GL33.GL_TIME_ELAPSED;
+
+/**
+ * Measures GPU time with a pool of {@code GL_TIME_ELAPSED} queries. Results are collected once the GPU has made
+ * them available, a few frames later, so measuring never waits for the GPU; the pool grows when every query is
+ * still pending. {@link #finish()} waits for the remaining results.
+ */
+public class GpuTimer {
+
+    private final LatencyHistogram histogram;
+
+    private int[] free;
+    private int freeCount;
+    private int[] pending;
+    private int head;
+    private int pendingCount;
+    private int active;
+    private boolean initialized;
+    private boolean core;
+
+    public GpuTimer(int queries, LatencyHistogram histogram) {
+        if (queries < 1)
+            throw new IllegalArgumentException("Timer queries must be at least 1: " + queries);
+        this.free = new int[queries];
+        this.pending = new int[queries];
+        this.histogram = histogram;
+    }
+
+    public void begin() {
+        if (active != 0)
+            throw new IllegalStateException("GPU timer already started");
+        if (!initialized)
+            init();
+        collect(false);
+        if (freeCount == 0)
+            grow();
+        active = free[--freeCount];
+        glBeginQuery(GL_TIME_ELAPSED, active);
+    }
+
+    public void end() {
+        if (active == 0)
+            return;
+        glEndQuery(GL_TIME_ELAPSED);
+        pending[(head + pendingCount) % pending.length] = active;
+        ++pendingCount;
+        active = 0;
+    }
+
+    /**
+     * Ends the current query and waits for all pending results.
+     */
+    public void finish() {
+        end();
+        collect(true);
+    }
+
+    public void dispose() {
+        end();
+        for (int i = 0; i < freeCount; ++i)
+            glDeleteQueries(free[i]);
+        for (int i = 0; i < pendingCount; ++i)
+            glDeleteQueries(pending[(head + i) % pending.length]);
+        freeCount = 0;
+        pendingCount = 0;
+        head = 0;
+        initialized = false;
+    }
+
+    private void init() {
+        ContextCapabilities capabilities = GLContext.getCapabilities();
+        if (!capabilities.OpenGL33 && !capabilities.GL_ARB_timer_query)
+            throw new IllegalStateException("GPU timer queries need OpenGL 3.3 or ARB_timer_query");
+        core = capabilities.OpenGL33;
+        for (int i = 0; i < free.length; ++i)
+            free[freeCount++] = glGenQueries();
+        initialized = true;
+    }
+
+    private void collect(boolean wait) {
+        while (pendingCount > 0) {
+            int query = pending[head];
+            if (!wait && glGetQueryObjecti(query, GL_QUERY_RESULT_AVAILABLE) != GL_TRUE)
+                return;
+            histogram.record(core
+                    ? GL33.glGetQueryObjectui64(query, GL_QUERY_RESULT)
+                    : ARBTimerQuery.glGetQueryObjectui64(query, GL_QUERY_RESULT));
+            head = (head + 1) % pending.length;
+            --pendingCount;
+            free[freeCount++] = query;
+        }
+    }
+
+    private void grow() {
+        int size = pending.length;
+        int[] queue = new int[size * 2];
+        for (int i = 0; i < pendingCount; ++i)
+            queue[i] = pending[(head + i) % size];
+        pending = queue;
+        head = 0;
+        free = Arrays.copyOf(free, size * 2);
+        for (int i = 0; i < size; ++i)
+            free[freeCount++] = glGenQueries();
+    }
+}
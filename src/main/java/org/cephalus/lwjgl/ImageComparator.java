@@ -2,39 +2,40 @@ package org.cephalus.lwjgl;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.ForkJoinPool;
 
+import static java.lang.Math.abs;
 import static java.lang.Math.min;
 import static org.junit.Assert.assertEquals;
 
 public class ImageComparator {
 
     public static BufferedImage getDifferenceImage(BufferedImage img1, BufferedImage img2) {
-        int width1 = img1.getWidth(); // Change - getWidth() and getHeight() for BufferedImage
-        int width2 = img2.getWidth(); // take no arguments
-        int height1 = img1.getHeight();
-        int height2 = img2.getHeight();
-
-        assertEquals("Different dimensions", new Dimension(width1, height1), new Dimension(width2, height2));
-
-        BufferedImage outImg = new BufferedImage(width1, height1, BufferedImage.TYPE_INT_RGB);
-
-        for (int i = 0; i < height1; i++) {
-            for (int j = 0; j < width1; j++) {
-                int rgb1 = img1.getRGB(j, i);
-                int rgb2 = img2.getRGB(j, i);
-                int r1 = (rgb1 >> 16) & 0xff;
-                int g1 = (rgb1 >> 8) & 0xff;
-                int b1 = (rgb1) & 0xff;
-                int r2 = (rgb2 >> 16) & 0xff;
-                int g2 = (rgb2 >> 8) & 0xff;
-                int b2 = (rgb2) & 0xff;
-
-                int r = Math.abs(r1 - r2);
-                int g = Math.abs(g1 - g2);
-                int b = Math.abs(b1 - b2);
-
-                int result = (r << 16) | (g << 8) | b;
-                outImg.setRGB(j, i, result);
+        int width = img1.getWidth();
+        int height = img1.getHeight();
+
+        assertSameDimensions(img1, img2);
+
+        BufferedImage outImg = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] out = ((DataBufferInt) outImg.getRaster().getDataBuffer()).getData();
+
+        PixelRows rows1 = PixelRows.of(img1);
+        PixelRows rows2 = PixelRows.of(img2);
+        for (int y = 0, i = 0; y < height; ++y) {
+            int[] row1 = rows1.row(y);
+            int[] row2 = rows2.row(y);
+            int offset1 = rows1.offset(y);
+            int offset2 = rows2.offset(y);
+            for (int x = 0; x < width; ++x, ++i) {
+                int rgb1 = row1[offset1 + x];
+                int rgb2 = row2[offset2 + x];
+
+                int r = abs(((rgb1 >> 16) & 0xff) - ((rgb2 >> 16) & 0xff));
+                int g = abs(((rgb1 >> 8) & 0xff) - ((rgb2 >> 8) & 0xff));
+                int b = abs((rgb1 & 0xff) - (rgb2 & 0xff));
+
+                out[i] = (r << 16) | (g << 8) | b;
             }
         }
 
@@ -45,12 +46,15 @@ public class ImageComparator {
         int width = diff.getWidth();
         int height = diff.getHeight();
 
-        long all = 0xFF * width * height;
+        long all = 0xFFL * width * height;
         long sum = 0;
 
+        PixelRows rows = PixelRows.of(diff);
         for(int y = 0; y < height; ++y) {
+            int[] row = rows.row(y);
+            int offset = rows.offset(y);
             for(int x = 0; x < width; ++x) {
-                int rgb = diff.getRGB(x, y);
+                int rgb = row[offset + x];
                 int r = (rgb >> 16) & 0xff;
                 int g = (rgb >> 8) & 0xff;
                 int b = (rgb) & 0xff;
@@ -60,4 +64,52 @@ public class ImageComparator {
 
         return sum / (float) all;
     }
+
+    /**
+     * Computes the divergence between both images in a single pass, without building the difference image.
+     * Stops as soon as the divergence is known to exceed {@code maxDivergence}.
+     */
+    public static Comparison compare(BufferedImage expected, BufferedImage actual, float maxDivergence) {
+        assertSameDimensions(expected, actual);
+
+        int width = expected.getWidth();
+        int height = expected.getHeight();
+
+        long all = 0xFFL * width * height;
+        long sum = 0;
+
+        PixelRows rows1 = PixelRows.of(expected);
+        PixelRows rows2 = PixelRows.of(actual);
+        for (int y = 0; y < height; ++y) {
+            sum += sumRow(rows1.row(y), rows1.offset(y), rows2.row(y), rows2.offset(y), width);
+            if (sum / (float) all > maxDivergence)
+                return new Comparison(expected, actual, sum / (float) all, false);
+        }
+
+        return new Comparison(expected, actual, sum / (float) all, true);
+    }
+
+    /**
+     * Same as {@link #compare(BufferedImage, BufferedImage, float)}, but frames with at least
+     * {@code parallelThreshold} pixels are split in row bands and compared on the common {@link ForkJoinPool}.
+     * A threshold of zero or less always compares sequentially.
+     */
+    public static Comparison compare(BufferedImage expected, BufferedImage actual, float maxDivergence, int parallelThreshold) {
+        assertSameDimensions(expected, actual);
+
+        long pixels = (long) expected.getWidth() * expected.getHeight();
+        if (parallelThreshold <= 0 || pixels < parallelThreshold)
+            return compare(expected, actual, maxDivergence);
+        return new ParallelComparison(expected, actual, maxDivergence).run(ForkJoinPool.commonPool());
+    }
+
+    static long sumRow(int[] row1, int offset1, int[] row2, int offset2, int width) {
+        return DivergenceKernel.BEST.sumRow(row1, offset1, row2, offset2, width);
+    }
+
+    private static void assertSameDimensions(BufferedImage img1, BufferedImage img2) {
+        assertEquals("Different dimensions"
+                , new Dimension(img1.getWidth(), img1.getHeight())
+                , new Dimension(img2.getWidth(), img2.getHeight()));
+    }
 }
@@ -0,0 +1,27 @@
+package org.cephalus.lwjgl;
+
+import java.io.File;
+
+/**
+ * Directory recordings and diff images are written to, {@code target/recorded-frames} unless the current thread
+ * was given its own one, as tests running in parallel are.
+ */
+public class OutputDirectory {
+
+    public static final File DEFAULT = new File("target/recorded-frames");
+
+    private static final ThreadLocal<File> current = new ThreadLocal<>();
+
+    public static File get() {
+        File directory = current.get();
+        return directory == null ? DEFAULT : directory;
+    }
+
+    public static void set(File directory) {
+        current.set(directory);
+    }
+
+    public static void clear() {
+        current.remove();
+    }
+}
@@ -0,0 +1,71 @@
+package org.cephalus.lwjgl;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Splits a comparison into row bands on a {@link ForkJoinPool}. Row sums are integers, so the total
+ * does not depend on how the bands are reduced and matches the sequential comparison exactly.
+ */
+class ParallelComparison {
+
+    private static final int MIN_BAND_PIXELS = 1 << 16;
+
+    private final BufferedImage expected;
+    private final BufferedImage actual;
+    private final float maxDivergence;
+    private final int width;
+    private final long all;
+
+    private final AtomicLong sum = new AtomicLong();
+    private volatile boolean exceeded;
+
+    ParallelComparison(BufferedImage expected, BufferedImage actual, float maxDivergence) {
+        this.expected = expected;
+        this.actual = actual;
+        this.maxDivergence = maxDivergence;
+        this.width = expected.getWidth();
+        this.all = 0xFFL * expected.getWidth() * expected.getHeight();
+    }
+
+    Comparison run(ForkJoinPool pool) {
+        int bandRows = Math.max(1, MIN_BAND_PIXELS / Math.max(1, width));
+        pool.invoke(new Band(0, expected.getHeight(), bandRows));
+        float divergence = sum.get() / (float) all;
+        return new Comparison(expected, actual, divergence, !exceeded && divergence <= maxDivergence);
+    }
+
+    private class Band extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final int bandRows;
+
+        Band(int from, int to, int bandRows) {
+            this.from = from;
+            this.to = to;
+            this.bandRows = bandRows;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > bandRows) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Band(from, middle, bandRows), new Band(middle, to, bandRows));
+                return;
+            }
+
+            PixelRows rows1 = PixelRows.of(expected);
+            PixelRows rows2 = PixelRows.of(actual);
+            long local = 0;
+            for (int y = from; y < to && !exceeded; ++y) {
+                local += ImageComparator.sumRow(rows1.row(y), rows1.offset(y), rows2.row(y), rows2.offset(y), width);
+                if ((sum.get() + local) / (float) all > maxDivergence)
+                    exceeded = true;
+            }
+            sum.addAndGet(local);
+        }
+    }
+}
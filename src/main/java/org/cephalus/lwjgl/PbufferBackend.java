@@ -0,0 +1,161 @@
+package org.cephalus.lwjgl;
+
+import org.lwjgl.LWJGLException;
+import org.lwjgl.opengl.ContextAttribs;
+import org.lwjgl.opengl.Display;
+import org.lwjgl.opengl.Pbuffer;
+import org.lwjgl.opengl.PixelFormat;
+
+import java.util.concurrent.locks.LockSupport;
+
+import static org.lwjgl.opengl.GL11.GL_RGBA8;
+import static org.lwjgl.opengl.GL11.glDrawBuffer;
+import static org.lwjgl.opengl.GL11.glFlush;
+import static org.lwjgl.opengl.GL11.glViewport;
+import static org.lwjgl.opengl.GL30.GL_COLOR_ATTACHMENT0;
+import static org.lwjgl.opengl.GL30.GL_DEPTH24_STENCIL8;
+import static org.lwjgl.opengl.GL30.GL_DEPTH_STENCIL_ATTACHMENT;
+import static org.lwjgl.opengl.GL30.GL_FRAMEBUFFER;
+import static org.lwjgl.opengl.GL30.GL_RENDERBUFFER;
+import static org.lwjgl.opengl.GL30.glBindFramebuffer;
+import static org.lwjgl.opengl.GL30.glBindRenderbuffer;
+import static org.lwjgl.opengl.GL30.glDeleteFramebuffers;
+import static org.lwjgl.opengl.GL30.glDeleteRenderbuffers;
+import static org.lwjgl.opengl.GL30.glFramebufferRenderbuffer;
+import static org.lwjgl.opengl.GL30.glGenFramebuffers;
+import static org.lwjgl.opengl.GL30.glGenRenderbuffers;
+import static org.lwjgl.opengl.GL30.glRenderbufferStorage;
+
+/**
+ * Renders offscreen, without a window, though LWJGL still creates the {@link Pbuffer} through GLX or WGL, so an X
+ * server (Xvfb on CI) is still required on Linux. The context belongs to a 1x1 pbuffer and frames are drawn to a
+ * framebuffer object of the requested size, bound when the context is created. Resizing only reallocates the
+ * framebuffer storage, and several threads can each own a context.
+ */
+public class PbufferBackend implements ContextBackend {
+
+    private Pbuffer pbuffer;
+    private int profile = -1;
+    private int width;
+    private int height;
+    private int framebuffer;
+    private int color;
+    private int depthStencil;
+    private long nextFrame;
+
+    @Override
+    public void create(int profile, int width, int height, String title) throws LWJGLException {
+        ContextAttribs contextAttributes = new ContextAttribs(profile / 100, profile % 100 / 10)
+                .withForwardCompatible(true)
+                .withProfileCore(true);
+
+        pbuffer = new Pbuffer(1, 1, new PixelFormat(), null, null, contextAttributes);
+        try {
+            pbuffer.makeCurrent();
+            framebuffer = glGenFramebuffers();
+            color = glGenRenderbuffers();
+            depthStencil = glGenRenderbuffers();
+            allocate(width, height);
+            glBindFramebuffer(GL_FRAMEBUFFER, framebuffer);
+            glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_RENDERBUFFER, color);
+            glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_DEPTH_STENCIL_ATTACHMENT, GL_RENDERBUFFER, depthStencil);
+            glDrawBuffer(GL_COLOR_ATTACHMENT0);
+        } catch (LWJGLException | RuntimeException ex) {
+            destroy();
+            throw ex;
+        }
+        this.profile = profile;
+    }
+
+    @Override
+    public boolean isCreated() {
+        return pbuffer != null;
+    }
+
+    @Override
+    public int getProfile() {
+        return profile;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        allocate(width, height);
+    }
+
+    @Override
+    public void setTitle(String title) {
+    }
+
+    @Override
+    public int getFramebuffer() {
+        return framebuffer;
+    }
+
+    @Override
+    public int getColorBuffer() {
+        return GL_COLOR_ATTACHMENT0;
+    }
+
+    @Override
+    public void swapBuffers() {
+        glFlush();
+    }
+
+    /**
+     * Paces frames on this context only: {@link Display#sync(int)} keeps global state that threads would share.
+     */
+    @Override
+    public void sync(int fps) {
+        long period = 1_000_000_000L / fps;
+        long now = System.nanoTime();
+        if (nextFrame - now <= 0) {
+            nextFrame = now + period;
+            return;
+        }
+        while (nextFrame - now > 0) {
+            LockSupport.parkNanos(nextFrame - now);
+            now = System.nanoTime();
+        }
+        nextFrame += period;
+    }
+
+    @Override
+    public void destroy() {
+        if (pbuffer == null)
+            return;
+        try {
+            if (framebuffer != 0) {
+                glBindFramebuffer(GL_FRAMEBUFFER, 0);
+                glDeleteFramebuffers(framebuffer);
+                glDeleteRenderbuffers(color);
+                glDeleteRenderbuffers(depthStencil);
+            }
+        } finally {
+            pbuffer.destroy();
+            pbuffer = null;
+            framebuffer = color = depthStencil = 0;
+            profile = -1;
+        }
+    }
+
+    private void allocate(int width, int height) {
+        glBindRenderbuffer(GL_RENDERBUFFER, color);
+        glRenderbufferStorage(GL_RENDERBUFFER, GL_RGBA8, width, height);
+        glBindRenderbuffer(GL_RENDERBUFFER, depthStencil);
+        glRenderbufferStorage(GL_RENDERBUFFER, GL_DEPTH24_STENCIL8, width, height);
+        glBindRenderbuffer(GL_RENDERBUFFER, 0);
+        glViewport(0, 0, width, height);
+        this.width = width;
+        this.height = height;
+    }
+}
@@ -0,0 +1,168 @@
+package org.cephalus.lwjgl;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.nio.IntBuffer;
+
+/**
+ * Row access to the packed {@code 0xRRGGBB} pixels of an image, reading the backing arrays directly
+ * when the image layout is known. Instances keep scratch state and must not be shared between threads.
+ */
+abstract class PixelRows {
+
+    final int width;
+    final int height;
+
+    PixelRows(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    static PixelRows of(BufferedImage image) {
+        if (image.getRaster().getDataBuffer() instanceof DirectPixels)
+            return new DirectRows(image);
+        switch (image.getType()) {
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_ARGB:
+                return new IntRows(image);
+            case BufferedImage.TYPE_3BYTE_BGR:
+            case BufferedImage.TYPE_4BYTE_ABGR:
+                return new ByteRows(image);
+            default:
+                return new GenericRows(image);
+        }
+    }
+
+    /**
+     * Array holding row {@code y}, starting at {@link #offset(int)}. Only the lower 24 bits are meaningful.
+     */
+    abstract int[] row(int y);
+
+    abstract int offset(int y);
+
+    private static class IntRows extends PixelRows {
+
+        private final int[] data;
+        private final int base;
+        private final int stride;
+
+        IntRows(BufferedImage image) {
+            super(image.getWidth(), image.getHeight());
+            Raster raster = image.getRaster();
+            SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) raster.getSampleModel();
+            DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+            data = buffer.getData();
+            stride = model.getScanlineStride();
+            base = buffer.getOffset()
+                    - raster.getSampleModelTranslateY() * stride
+                    - raster.getSampleModelTranslateX();
+        }
+
+        @Override
+        int[] row(int y) {
+            return data;
+        }
+
+        @Override
+        int offset(int y) {
+            return base + y * stride;
+        }
+    }
+
+    private static class ByteRows extends PixelRows {
+
+        private final byte[] data;
+        private final int base;
+        private final int stride;
+        private final int pixelStride;
+        private final int red;
+        private final int green;
+        private final int blue;
+        private final int[] scratch;
+
+        ByteRows(BufferedImage image) {
+            super(image.getWidth(), image.getHeight());
+            Raster raster = image.getRaster();
+            ComponentSampleModel model = (ComponentSampleModel) raster.getSampleModel();
+            DataBufferByte buffer = (DataBufferByte) raster.getDataBuffer();
+            int[] bands = model.getBandOffsets();
+            data = buffer.getData();
+            stride = model.getScanlineStride();
+            pixelStride = model.getPixelStride();
+            base = buffer.getOffset()
+                    - raster.getSampleModelTranslateY() * stride
+                    - raster.getSampleModelTranslateX() * pixelStride;
+            red = bands[0];
+            green = bands[1];
+            blue = bands[2];
+            scratch = new int[width];
+        }
+
+        @Override
+        int[] row(int y) {
+            int i = base + y * stride;
+            for (int x = 0; x < width; ++x, i += pixelStride) {
+                int r = data[i + red] & 0xFF;
+                int g = data[i + green] & 0xFF;
+                int b = data[i + blue] & 0xFF;
+                scratch[x] = (r << 16) | (g << 8) | b;
+            }
+            return scratch;
+        }
+
+        @Override
+        int offset(int y) {
+            return 0;
+        }
+    }
+
+    private static class DirectRows extends PixelRows {
+
+        private final IntBuffer pixels;
+        private final int[] scratch;
+
+        DirectRows(BufferedImage image) {
+            super(image.getWidth(), image.getHeight());
+            pixels = ((DirectPixels) image.getRaster().getDataBuffer()).pixels.duplicate();
+            scratch = new int[width];
+        }
+
+        @Override
+        int[] row(int y) {
+            pixels.position(y * width);
+            pixels.get(scratch);
+            return scratch;
+        }
+
+        @Override
+        int offset(int y) {
+            return 0;
+        }
+    }
+
+    private static class GenericRows extends PixelRows {
+
+        private final BufferedImage image;
+        private final int[] scratch;
+
+        GenericRows(BufferedImage image) {
+            super(image.getWidth(), image.getHeight());
+            this.image = image;
+            this.scratch = new int[width];
+        }
+
+        @Override
+        int[] row(int y) {
+            return image.getRGB(0, y, width, 1, scratch, 0, width);
+        }
+
+        @Override
+        int offset(int y) {
+            return 0;
+        }
+    }
+}
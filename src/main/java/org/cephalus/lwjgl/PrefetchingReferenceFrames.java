@@ -0,0 +1,141 @@
+package org.cephalus.lwjgl;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Decodes the frames following the last one read on a background thread, so that they are ready when the
+ * test loop asks for them. At most {@code depth} frames, and no more than {@code maxBytes} of decoded pixels,
+ * are held ahead. Only the frames selected by the {@link FrameSampling} are decoded.
+ */
+public class PrefetchingReferenceFrames implements ReferenceFrames {
+
+    public static final long DEFAULT_MAX_BYTES = Long.getLong("lwjgl.junit.prefetch.maxBytes", 256L << 20);
+
+    private final ReferenceFrames source;
+    private final int depth;
+    private final long maxBytes;
+    private final FrameSampling sampling;
+    private final ExecutorService worker;
+    private final Map<Integer, Future<BufferedImage>> pending = new HashMap<>();
+
+    private long frameBytes;
+
+    public PrefetchingReferenceFrames(ReferenceFrames source, int depth) {
+        this(source, depth, DEFAULT_MAX_BYTES);
+    }
+
+    public PrefetchingReferenceFrames(ReferenceFrames source, int depth, long maxBytes) {
+        this(source, depth, maxBytes, FrameSampling.ALL);
+    }
+
+    public PrefetchingReferenceFrames(ReferenceFrames source, int depth, long maxBytes, FrameSampling sampling) {
+        this.source = source;
+        this.depth = depth;
+        this.maxBytes = maxBytes;
+        this.sampling = sampling;
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reference-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        prefetch(0);
+    }
+
+    @Override
+    public int size() {
+        return source.size();
+    }
+
+    @Override
+    public String name(int index) {
+        return source.name(index);
+    }
+
+    @Override
+    public OptionalLong hash(int index) {
+        return source.hash(index);
+    }
+
+    @Override
+    public int tileSize() {
+        return source.tileSize();
+    }
+
+    @Override
+    public long[] changedTiles(int index) throws IOException {
+        return source.changedTiles(index);
+    }
+
+    @Override
+    public synchronized BufferedImage read(int index) throws IOException {
+        Future<BufferedImage> future = pending.remove(index);
+        discardBefore(index);
+
+        BufferedImage image = future != null ? get(future) : source.read(index);
+        frameBytes = 4L * image.getWidth() * image.getHeight();
+
+        prefetch(index + 1);
+        return image;
+    }
+
+    private void prefetch(int from) {
+        // until a frame size is known, only the next frame is decoded ahead
+        int lookahead = Math.min(depth, 1);
+        if (frameBytes > 0)
+            lookahead = (int) Math.min(depth, maxBytes / frameBytes);
+        int size = source.size();
+        for (int i = sampling.next(from), count = 0; i >= 0 && i < size && count < lookahead; i = sampling.next(i + 1), ++count) {
+            final int index = i;
+            pending.computeIfAbsent(index, key -> worker.submit(() -> source.read(index)));
+        }
+    }
+
+    private void discardBefore(int index) {
+        Iterator<Map.Entry<Integer, Future<BufferedImage>>> entries = pending.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Integer, Future<BufferedImage>> entry = entries.next();
+            if (entry.getKey() < index) {
+                entry.getValue().cancel(false);
+                entries.remove();
+            }
+        }
+    }
+
+    private static BufferedImage get(Future<BufferedImage> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while decoding a reference frame");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof UncheckedIOException)
+                throw ((UncheckedIOException) cause).getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        worker.shutdownNow();
+        pending.clear();
+        source.close();
+    }
+}
@@ -0,0 +1,297 @@
+package org.cephalus.lwjgl;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.OptionalLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a raw frame archive through memory mapping. The frames and the index are each mapped once, so archives
+ * are limited to 2 GiB of frames. All values are little endian:
+ * <pre>
+ * header  magic "LJFA", version, width, height, pixel format, compression, frame count, tile size, index offset (long)
+ * frames  width * height BGRA pixels per frame, top row first, optionally deflated
+ * index   per frame: offset (long), stored length, flags, {@link FrameHash} (long, since version 2)
+ * </pre>
+ * {@link #PIXEL_FORMAT_BGRA8} pixels read as little endian ints are {@code 0xAARRGGBB}, the layout of
+ * {@link BufferedImage#TYPE_INT_RGB} rasters and of {@code GL_BGRA}/{@code GL_UNSIGNED_INT_8_8_8_8_REV} readbacks.
+ * <p>
+ * With {@link #COMPRESSION_TILE_DELTA} only {@link #FLAG_KEYFRAME} frames hold every pixel. Other frames hold a
+ * bit set of the tiles that changed since the previous frame followed by the deflated pixels of those tiles, row by
+ * row. Since version 3 the bit set is stored uncompressed, so that it can be read without inflating the frame.
+ */
+public class RawFrameArchive implements ReferenceFrames {
+
+    public static final String EXTENSION = ".frames";
+
+    static final int MAGIC = 0x41464A4C;
+    static final int VERSION = 3;
+    static final int HEADER_SIZE = 40;
+    static final int INDEX_ENTRY_SIZE = 24;
+    static final int INDEX_ENTRY_SIZE_V1 = 16;
+
+    public static final int PIXEL_FORMAT_BGRA8 = 1;
+
+    public static final int COMPRESSION_NONE = 0;
+    public static final int COMPRESSION_DEFLATE = 1;
+    public static final int COMPRESSION_TILE_DELTA = 2;
+
+    public static final int FLAG_KEYFRAME = 1;
+
+    private final FileChannel channel;
+    private final String name;
+    private final int width;
+    private final int height;
+    private final int compression;
+    private final int frameCount;
+    private final ByteBuffer data;
+    private final ByteBuffer index;
+    private final int entrySize;
+    private final Tiles tiles;
+    private final boolean compressedBits;
+
+    private final Inflater inflater = new Inflater();
+    private byte[] input = new byte[0];
+    private byte[] output;
+    private int[] current;
+    private int currentIndex = -1;
+    // changed tiles of the delta frames decoded so far, so that comparing a frame does not inflate it twice
+    private long[][] changed;
+
+    private RawFrameArchive(FileChannel channel, String name) throws IOException {
+        this.channel = channel;
+        this.name = name;
+
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt(0) != MAGIC)
+            throw new IOException("Not a raw frame archive: " + name);
+        int version = header.getInt(4);
+        if (version < 1 || version > VERSION)
+            throw new IOException("Unsupported raw frame archive version " + header.getInt(4) + ": " + name);
+        if (header.getInt(16) != PIXEL_FORMAT_BGRA8)
+            throw new IOException("Unsupported pixel format " + header.getInt(16) + ": " + name);
+        width = header.getInt(8);
+        height = header.getInt(12);
+        compression = header.getInt(20);
+        frameCount = header.getInt(24);
+        int tileSize = header.getInt(28);
+        tiles = compression == COMPRESSION_TILE_DELTA ? new Tiles(width, height, tileSize) : null;
+        changed = tiles != null ? new long[frameCount][] : null;
+        compressedBits = version < 3;
+        long indexOffset = header.getLong(32);
+        if (indexOffset - HEADER_SIZE > Integer.MAX_VALUE)
+            throw new IOException("Raw frame archive larger than 2 GiB: " + name);
+        data = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, indexOffset - HEADER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        entrySize = version == 1 ? INDEX_ENTRY_SIZE_V1 : INDEX_ENTRY_SIZE;
+        index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, (long) frameCount * entrySize)
+                .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public static RawFrameArchive open(File file) throws IOException {
+        return open(file, ZipReferenceFrames.stripExtension(file.getName()));
+    }
+
+    public static RawFrameArchive open(URL resource, String name) throws IOException {
+        return open(ResourceFiles.toFile(resource), name);
+    }
+
+    private static RawFrameArchive open(File file, String name) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            return new RawFrameArchive(channel, name);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int size() {
+        return frameCount;
+    }
+
+    @Override
+    public String name(int index) {
+        return String.format(name + "_%04d", index + 1);
+    }
+
+    @Override
+    public OptionalLong hash(int index) {
+        if (entrySize == INDEX_ENTRY_SIZE_V1 || index < 0 || index >= frameCount)
+            return OptionalLong.empty();
+        return OptionalLong.of(this.index.getLong(index * entrySize + 16));
+    }
+
+    @Override
+    public int tileSize() {
+        return tiles == null ? 0 : tiles.size;
+    }
+
+    @Override
+    public synchronized long[] changedTiles(int index) throws IOException {
+        if (tiles == null || index == 0 || (flags(index) & FLAG_KEYFRAME) != 0)
+            return null;
+        if (changed[index] == null)
+            changed[index] = readBits(bits(index));
+        return changed[index];
+    }
+
+    @Override
+    public BufferedImage read(int index) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        readPixels(index, ((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+        return image;
+    }
+
+    /**
+     * Copies the {@code 0xAARRGGBB} pixels of a frame, top row first, into {@code target}.
+     */
+    public void readPixels(int index, int[] target) throws IOException {
+        if (index < 0 || index >= frameCount)
+            throw new IndexOutOfBoundsException("Frame " + index + " of " + frameCount);
+
+        if (tiles != null) {
+            readDelta(index, target);
+            return;
+        }
+
+        if (compression == COMPRESSION_DEFLATE) {
+            synchronized (this) {
+                inflate(stored(index), width * height * 4, true).asIntBuffer().get(target, 0, width * height);
+            }
+        } else {
+            stored(index).asIntBuffer().get(target, 0, width * height);
+        }
+    }
+
+    private synchronized void readDelta(int index, int[] target) throws IOException {
+        int keyframe = index;
+        while (keyframe > 0 && (flags(keyframe) & FLAG_KEYFRAME) == 0)
+            --keyframe;
+
+        if (current == null)
+            current = new int[width * height];
+        int next = currentIndex >= keyframe && currentIndex <= index ? currentIndex + 1 : keyframe;
+        for (int frame = next; frame <= index; ++frame)
+            apply(frame);
+        currentIndex = index;
+
+        System.arraycopy(current, 0, target, 0, width * height);
+    }
+
+    private void apply(int frame) throws IOException {
+        if (frame == 0 || (flags(frame) & FLAG_KEYFRAME) != 0) {
+            inflate(stored(frame), width * height * 4, true).asIntBuffer().get(current);
+            return;
+        }
+
+        IntBuffer delta = bits(frame);
+        long[] bits = readBits(delta);
+        changed[frame] = bits;
+        if (!compressedBits)
+            delta = inflate(stored(frame, tiles.words() * 8), width * height * 4, false).asIntBuffer();
+        for (int tile = 0; tile < tiles.count; ++tile) {
+            if (!Tiles.isSet(bits, tile))
+                continue;
+            int tileWidth = tiles.tileWidth(tile);
+            int end = (tiles.y(tile) + tiles.tileHeight(tile)) * width;
+            for (int row = tiles.y(tile) * width + tiles.x(tile); row < end; row += width)
+                delta.get(current, row, tileWidth);
+        }
+    }
+
+    private long[] readBits(IntBuffer delta) {
+        long[] bits = new long[tiles.words()];
+        for (int i = 0; i < bits.length; ++i)
+            bits[i] = (delta.get() & 0xFFFFFFFFL) | ((long) delta.get() << 32);
+        return bits;
+    }
+
+    /**
+     * The stored bit set of a delta frame, followed by its pixels when both are deflated. Only valid until the next
+     * frame is inflated.
+     */
+    private IntBuffer bits(int frame) throws IOException {
+        if (compressedBits)
+            return inflate(stored(frame), tiles.words() * 8 + width * height * 4, false).asIntBuffer();
+        ByteBuffer stored = stored(frame);
+        stored.limit(tiles.words() * 8);
+        return stored.asIntBuffer();
+    }
+
+    private int flags(int index) {
+        return this.index.getInt(index * entrySize + 12);
+    }
+
+    private ByteBuffer stored(int index) {
+        return stored(index, 0);
+    }
+
+    /**
+     * Bytes of a frame from {@code skip} on, sliced from the single mapping of the frames.
+     */
+    private ByteBuffer stored(int index, int skip) {
+        int offset = (int) (this.index.getLong(index * entrySize) - HEADER_SIZE);
+        int length = this.index.getInt(index * entrySize + 8);
+        ByteBuffer stored = data.duplicate();
+        stored.limit(offset + length).position(offset + skip);
+        return stored.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Inflates into a buffer reused by the next call; callers hold the lock of the archive.
+     */
+    private ByteBuffer inflate(ByteBuffer stored, int capacity, boolean exact) throws IOException {
+        int length = stored.remaining();
+        if (input.length < length)
+            input = new byte[length];
+        stored.get(input, 0, length);
+        if (output == null || output.length < capacity)
+            output = new byte[capacity];
+        inflater.reset();
+        int read = 0;
+        try {
+            inflater.setInput(input, 0, length);
+            while (read < capacity && !inflater.finished()) {
+                int count = inflater.inflate(output, read, capacity - read);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                read += count;
+            }
+            if (exact ? read != capacity : !inflater.finished())
+                throw new IOException("Truncated frame in " + name);
+        } catch (DataFormatException ex) {
+            throw new IOException("Corrupted frame in " + name, ex);
+        }
+        return ByteBuffer.wrap(output, 0, read).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            synchronized (this) {
+                inflater.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package org.cephalus.lwjgl;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+
+import static org.cephalus.lwjgl.RawFrameArchive.COMPRESSION_DEFLATE;
+import static org.cephalus.lwjgl.RawFrameArchive.COMPRESSION_NONE;
+import static org.cephalus.lwjgl.RawFrameArchive.COMPRESSION_TILE_DELTA;
+import static org.cephalus.lwjgl.RawFrameArchive.FLAG_KEYFRAME;
+import static org.cephalus.lwjgl.RawFrameArchive.HEADER_SIZE;
+import static org.cephalus.lwjgl.RawFrameArchive.INDEX_ENTRY_SIZE;
+import static org.cephalus.lwjgl.RawFrameArchive.MAGIC;
+import static org.cephalus.lwjgl.RawFrameArchive.PIXEL_FORMAT_BGRA8;
+import static org.cephalus.lwjgl.RawFrameArchive.VERSION;
+
+/**
+ * Writes the format read by {@link RawFrameArchive}. All frames must have the size of the first one.
+ */
+public class RawFrameArchiveWriter implements Closeable {
+
+    public static final int DEFAULT_TILE_SIZE = 32;
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 30;
+
+    private final FileChannel channel;
+    private final int compression;
+    private final int tileSize;
+    private final int keyframeInterval;
+
+    private int width = -1;
+    private int height = -1;
+    private ByteBuffer pixels;
+    private ByteBuffer index = ByteBuffer.allocate(64 * INDEX_ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private int frameCount;
+    private Deflater deflater;
+    private byte[] deflated;
+
+    private Tiles tiles;
+    private int[] previous;
+    private int[] frame;
+    private ByteBuffer bits;
+    private ByteBuffer delta;
+
+    public RawFrameArchiveWriter(File file, boolean compress) throws IOException {
+        this(file, compress ? COMPRESSION_DEFLATE : COMPRESSION_NONE, 0, 0);
+    }
+
+    /**
+     * With {@link RawFrameArchive#COMPRESSION_TILE_DELTA}, frames are split in tiles of {@code tileSize} pixels
+     * and only the tiles that changed are stored, except for every {@code keyframeInterval}th frame.
+     */
+    public RawFrameArchiveWriter(File file, int compression, int tileSize, int keyframeInterval) throws IOException {
+        if (compression == COMPRESSION_TILE_DELTA && (tileSize < 1 || keyframeInterval < 1))
+            throw new IllegalArgumentException("Tile size and keyframe interval must be at least 1");
+        this.channel = FileChannel.open(file.toPath()
+                , StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.compression = compression;
+        this.tileSize = compression == COMPRESSION_TILE_DELTA ? tileSize : 0;
+        this.keyframeInterval = keyframeInterval;
+        channel.position(HEADER_SIZE);
+    }
+
+    public void write(BufferedImage image) throws IOException {
+        if (width < 0) {
+            width = image.getWidth();
+            height = image.getHeight();
+            pixels = ByteBuffer.allocate(width * height * 4).order(ByteOrder.LITTLE_ENDIAN);
+        } else if (image.getWidth() != width || image.getHeight() != height) {
+            throw new IllegalArgumentException("Frame size " + image.getWidth() + "x" + image.getHeight()
+                    + " differs from " + width + "x" + height);
+        }
+
+        pixels.clear();
+        IntBuffer ints = pixels.asIntBuffer();
+        PixelRows rows = PixelRows.of(image);
+        for (int y = 0; y < height; ++y) {
+            int[] row = rows.row(y);
+            int offset = rows.offset(y);
+            for (int x = 0; x < width; ++x)
+                ints.put(0xFF000000 | row[offset + x]);
+        }
+
+        long offset = channel.position();
+        int flags = 0;
+        int length;
+        if (compression == COMPRESSION_TILE_DELTA) {
+            boolean keyframe = frameCount % keyframeInterval == 0;
+            flags = keyframe ? FLAG_KEYFRAME : 0;
+            length = writeTileDelta(keyframe);
+        } else if (compression == COMPRESSION_DEFLATE) {
+            length = writeDeflated(pixels.array(), pixels.capacity());
+        } else {
+            length = writeFully(pixels);
+        }
+
+        if (index.remaining() < INDEX_ENTRY_SIZE) {
+            ByteBuffer grown = ByteBuffer.allocate(index.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+            index.flip();
+            grown.put(index);
+            index = grown;
+        }
+        index.putLong(offset).putInt(length).putInt(flags).putLong(FrameHash.of(image));
+        ++frameCount;
+    }
+
+    private int writeTileDelta(boolean keyframe) throws IOException {
+        if (tiles == null) {
+            tiles = new Tiles(width, height, tileSize);
+            previous = new int[width * height];
+            frame = new int[width * height];
+            bits = ByteBuffer.allocate(tiles.words() * 8).order(ByteOrder.LITTLE_ENDIAN);
+            delta = ByteBuffer.allocate(width * height * 4).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        pixels.asIntBuffer().get(frame);
+
+        int length;
+        if (keyframe) {
+            length = writeDeflated(pixels.array(), pixels.capacity());
+        } else {
+            long[] changed = new long[tiles.words()];
+            for (int tile = 0; tile < tiles.count; ++tile)
+                if (!tiles.equal(frame, previous, tile))
+                    Tiles.set(changed, tile);
+
+            bits.clear();
+            for (long word : changed)
+                bits.putLong(word);
+            bits.flip();
+            IntBuffer out = delta.asIntBuffer();
+            for (int tile = 0; tile < tiles.count; ++tile) {
+                if (!Tiles.isSet(changed, tile))
+                    continue;
+                int tileWidth = tiles.tileWidth(tile);
+                int end = (tiles.y(tile) + tiles.tileHeight(tile)) * width;
+                for (int row = tiles.y(tile) * width + tiles.x(tile); row < end; row += width)
+                    out.put(frame, row, tileWidth);
+            }
+            length = writeFully(bits) + writeDeflated(delta.array(), out.position() * 4);
+        }
+
+        int[] swap = previous;
+        previous = frame;
+        frame = swap;
+        return length;
+    }
+
+    private int writeDeflated(byte[] data, int length) throws IOException {
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+            deflated = new byte[64 * 1024];
+        }
+        deflater.reset();
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+        int written = 0;
+        while (!deflater.finished()) {
+            int count = deflater.deflate(deflated);
+            written += writeFully(ByteBuffer.wrap(deflated, 0, count));
+        }
+        return written;
+    }
+
+    private int writeFully(ByteBuffer buffer) throws IOException {
+        int length = buffer.remaining();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            long indexOffset = channel.position();
+            index.flip();
+            writeFully(index);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(Math.max(width, 0))
+                    .putInt(Math.max(height, 0))
+                    .putInt(PIXEL_FORMAT_BGRA8)
+                    .putInt(compression)
+                    .putInt(frameCount)
+                    .putInt(tileSize)
+                    .putLong(indexOffset);
+            header.flip();
+            channel.position(0);
+            writeFully(header);
+        } finally {
+            if (deflater != null)
+                deflater.end();
+            channel.close();
+        }
+    }
+}
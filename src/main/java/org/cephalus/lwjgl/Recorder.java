@@ -2,76 +2,238 @@ package org.cephalus.lwjgl;
 
 import org.lwjgl.BufferUtils;
 import org.lwjgl.LWJGLException;
-import org.lwjgl.opengl.Display;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Properties;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_BGRA;
+import static org.lwjgl.opengl.GL12.GL_UNSIGNED_INT_8_8_8_8_REV;
+import static org.lwjgl.opengl.GL30.GL_READ_FRAMEBUFFER;
+import static org.lwjgl.opengl.GL30.GL_READ_FRAMEBUFFER_BINDING;
+import static org.lwjgl.opengl.GL30.glBindFramebuffer;
 
 public class Recorder {
 
-    private final ZipOutputStream zip;
-    private final File zipFile;
+    public enum Format {
+        PNG(".zip", true)
+        , RAW(RawFrameArchive.EXTENSION, false)
+        , RAW_DEFLATE(RawFrameArchive.EXTENSION, false)
+        , TILE_DELTA(RawFrameArchive.EXTENSION, false)
+        , THUMBNAIL(ThumbnailReferenceFrames.EXTENSION, true);
+
+        private final String extension;
+        private final boolean zip;
+
+        Format(String extension, boolean zip) {
+            this.extension = extension;
+            this.zip = zip;
+        }
+    }
+
+    private static final ThreadLocal<IntBuffer> pixels = new ThreadLocal<>();
+
+    private final File directory;
     private String testName;
+    private Format format = Format.PNG;
+    private int thumbnailScale = ThumbnailReferenceFrames.DEFAULT_SCALE;
+    private File file;
+    private ZipOutputStream zip;
+    private RawFrameArchiveWriter archive;
     private int frame;
+    private final Properties hashes = new Properties();
+    private AsyncReadback readback;
+    private EncodingPipeline encoder;
 
     public Recorder(String testName) throws IOException {
         this.testName = testName;
-        zipFile = new File("target/recorded-frames/" + testName + ".zip");
-        zipFile.getParentFile().mkdirs();
-        this.zip = new ZipOutputStream(new FileOutputStream(zipFile));
+        this.directory = OutputDirectory.get();
+        this.file = new File(directory, testName + format.extension);
+        directory.mkdirs();
+    }
+
+    /**
+     * Stores frames as {@link Format#PNG} entries of a zip file (the default), or in a memory mappable
+     * {@link RawFrameArchive}, optionally deflated. {@link Format#TILE_DELTA} only stores the tiles that changed
+     * since the previous frame, with periodic keyframes. {@link Format#THUMBNAIL} only stores the hash and a
+     * {@link ThumbnailReferenceFrames thumbnail} of each frame. Must be chosen before the first snapshot.
+     */
+    public Recorder withFormat(Format format) {
+        if (zip != null || archive != null)
+            throw new IllegalStateException("Recording already started");
+        if (encoder != null && !format.zip)
+            throw new IllegalStateException("Asynchronous encoding only applies to PNG and THUMBNAIL frames");
+        this.format = format;
+        this.file = new File(directory, testName + format.extension);
+        return this;
+    }
+
+    /**
+     * Size reduction of {@link Format#THUMBNAIL} frames, {@value ThumbnailReferenceFrames#DEFAULT_SCALE} by default.
+     */
+    public Recorder withThumbnailScale(int scale) {
+        if (scale < 1)
+            throw new IllegalArgumentException("Thumbnail scale must be at least 1: " + scale);
+        if (zip != null)
+            throw new IllegalStateException("Recording already started");
+        this.thumbnailScale = scale;
+        return this;
+    }
+
+    /**
+     * Reads frames back through a ring of {@code depth} pixel buffers instead of stalling on every snapshot.
+     * Frames are written a few snapshots later, and the remaining ones on {@link #close()}.
+     */
+    public Recorder withAsyncReadback(int depth) {
+        this.readback = new AsyncReadback(depth, (index, image) -> write(image));
+        return this;
+    }
+
+    /**
+     * Encodes {@link Format#PNG} and {@link Format#THUMBNAIL} frames on {@code threads} background threads. Once
+     * {@code capacity} frames wait to be written, {@link #saveSnapshot()} blocks until the oldest one is done. Frames
+     * are still stored in order. Must be chosen before the first snapshot, and after {@link #withFormat(Format)}.
+     */
+    public Recorder withAsyncEncoding(int threads, int capacity) {
+        if (zip != null || archive != null)
+            throw new IllegalStateException("Recording already started");
+        if (!format.zip)
+            throw new IllegalStateException("Asynchronous encoding only applies to PNG and THUMBNAIL frames");
+        if (encoder != null)
+            encoder.discard();
+        this.encoder = new EncodingPipeline(threads, capacity, "PNG", this::writeEntry);
+        return this;
     }
 
     public void saveSnapshot() throws IOException, LWJGLException {
-        BufferedImage image = takeSnapshot();
+        if (readback != null)
+            readback.capture();
+        else
+            write(takeSnapshot());
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    private void write(BufferedImage image) throws IOException {
+        ++frame;
+        if (!format.zip) {
+            archive().write(image);
+            return;
+        }
 
-        String name = String.format(testName + "_%04d.png", ++frame);
-        ZipEntry snapshot = new ZipEntry(name);
+        String name = String.format(testName + "_%04d.png", frame);
+        hashes.setProperty(ZipReferenceFrames.stripExtension(name), FrameHash.toString(FrameHash.of(image)));
+        if (format == Format.THUMBNAIL)
+            image = ThumbnailReferenceFrames.thumbnail(image, thumbnailScale);
 
-        String format = "PNG";
+        if (encoder != null) {
+            encoder.submit(name, image);
+            return;
+        }
 
-        zip.putNextEntry(snapshot);
-        ImageIO.write(image, format, zip);
+        zip().putNextEntry(new ZipEntry(name));
+        ImageIO.write(image, "PNG", zip);
+    }
+
+    private void writeEntry(String name, byte[] data) throws IOException {
+        zip().putNextEntry(new ZipEntry(name));
+        zip.write(data);
+    }
+
+    private ZipOutputStream zip() throws IOException {
+        if (zip == null)
+            zip = new ZipOutputStream(new FileOutputStream(file));
+        return zip;
+    }
+
+    private RawFrameArchiveWriter archive() throws IOException {
+        if (archive == null && format == Format.TILE_DELTA)
+            archive = new RawFrameArchiveWriter(file, RawFrameArchive.COMPRESSION_TILE_DELTA
+                    , RawFrameArchiveWriter.DEFAULT_TILE_SIZE, RawFrameArchiveWriter.DEFAULT_KEYFRAME_INTERVAL);
+        if (archive == null)
+            archive = new RawFrameArchiveWriter(file, format == Format.RAW_DEFLATE);
+        return archive;
     }
 
     public static BufferedImage takeSnapshot() {
+        ContextBackend backend = ContextBackends.current();
         glFlush();
         glFinish();
-        glReadBuffer(GL_BACK);
-        int width = Display.getDisplayMode().getWidth();
-        int height = Display.getDisplayMode().getHeight();
-        int bpp = 4;
-        ByteBuffer buffer = BufferUtils.createByteBuffer(width * height * bpp);
-        glReadPixels(0, 0, width, height, GL_RGBA, GL_UNSIGNED_BYTE, buffer);
+        int width = backend.getWidth();
+        int height = backend.getHeight();
+        IntBuffer buffer = pixelBuffer(width * height);
+        int previous = bindForReading(backend);
+        glReadPixels(0, 0, width, height, GL_BGRA, GL_UNSIGNED_INT_8_8_8_8_REV, buffer);
+        glBindFramebuffer(GL_READ_FRAMEBUFFER, previous);
+        return toImage(buffer, width, height);
+    }
 
+    /**
+     * Binds the color buffer of the rendered frame for reading, and returns the read framebuffer it replaces.
+     */
+    static int bindForReading(ContextBackend backend) {
+        int previous = glGetInteger(GL_READ_FRAMEBUFFER_BINDING);
+        glBindFramebuffer(GL_READ_FRAMEBUFFER, backend.getFramebuffer());
+        glReadBuffer(backend.getColorBuffer());
+        return previous;
+    }
+
+    static BufferedImage toImage(IntBuffer pixels, int width, int height) {
         BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        for(int x = 0; x < width; x++)
-        {
-            for(int y = 0; y < height; y++)
-            {
-                int i = (x + (width * y)) * bpp;
-                int r = buffer.get(i) & 0xFF;
-                int g = buffer.get(i + 1) & 0xFF;
-                int b = buffer.get(i + 2) & 0xFF;
-                image.setRGB(x, height - (y + 1), (0xFF << 24) | (r << 16) | (g << 8) | b);
-            }
+        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int y = 0; y < height; ++y) {
+            pixels.position((height - (y + 1)) * width);
+            pixels.get(data, y * width, width);
         }
+        pixels.clear();
         return image;
     }
 
+    private static IntBuffer pixelBuffer(int size) {
+        IntBuffer buffer = pixels.get();
+        if (buffer == null || buffer.capacity() < size) {
+            buffer = BufferUtils.createIntBuffer(size);
+            pixels.set(buffer);
+        }
+        buffer.clear().limit(size);
+        return buffer;
+    }
+
     public void close() throws IOException {
-        zip.flush();
-        zip.close();
+        try {
+            if (readback != null) {
+                readback.flush();
+                readback.dispose();
+            }
+        } finally {
+            try {
+                if (encoder != null)
+                    encoder.close();
+            } finally {
+                if (format.zip) {
+                    if (format == Format.THUMBNAIL)
+                        hashes.setProperty(ThumbnailReferenceFrames.SCALE_PROPERTY, Integer.toString(thumbnailScale));
+                    zip().putNextEntry(new ZipEntry(ZipReferenceFrames.MANIFEST));
+                    hashes.store(zip, null);
+                    zip.close();
+                } else {
+                    archive().close();
+                }
+            }
+        }
     }
 
     public void clear() {
-        zipFile.delete();
+        file.delete();
     }
 }
@@ -0,0 +1,189 @@
+package org.cephalus.lwjgl;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Process wide cache of decoded reference frames, keyed by test class, reference name and frame index, so that
+ * tests sharing a golden sequence decode it once. The least recently used frames are evicted once the cached
+ * pixels exceed {@code lwjgl.junit.referenceCache.maxBytes} (256 MiB by default, 0 disables the cache).
+ * With {@code lwjgl.junit.referenceCache.offHeap=true} pixels are kept in direct buffers, out of the Java heap.
+ */
+public class ReferenceFrameCache {
+
+    private static final ReferenceFrameCache shared = new ReferenceFrameCache(
+            Long.getLong("lwjgl.junit.referenceCache.maxBytes", 256L << 20)
+            , Boolean.getBoolean("lwjgl.junit.referenceCache.offHeap"));
+
+    private final long maxBytes;
+    private final boolean offHeap;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ReferenceFrameCache(long maxBytes, boolean offHeap) {
+        this.maxBytes = maxBytes;
+        this.offHeap = offHeap;
+    }
+
+    public static ReferenceFrameCache shared() {
+        return shared;
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * The cached frame, or {@code null}. Returned images are shared and must not be modified; off-heap ones read
+     * their pixels from the direct buffer and can not be.
+     */
+    public BufferedImage get(Class<?> owner, String reference, int index) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(new Key(owner, reference, index));
+            if (entry == null) {
+                ++misses;
+                return null;
+            }
+            ++hits;
+        }
+        return entry.image();
+    }
+
+    public void put(Class<?> owner, String reference, int index, BufferedImage image) {
+        long size = 4L * image.getWidth() * image.getHeight();
+        if (size > maxBytes)
+            return;
+        Entry entry = offHeap ? new DirectEntry(image) : new HeapEntry(image);
+        synchronized (this) {
+            Entry previous = entries.put(new Key(owner, reference, index), entry);
+            if (previous != null)
+                bytes -= previous.size();
+            bytes += entry.size();
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().size();
+                eldest.remove();
+                ++evictions;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("ReferenceFrameCache[frames=%d, bytes=%d, hits=%d, misses=%d, evictions=%d]"
+                , entries.size(), bytes, hits, misses, evictions);
+    }
+
+    private interface Entry {
+        long size();
+
+        BufferedImage image();
+    }
+
+    private static class HeapEntry implements Entry {
+        private final BufferedImage image;
+
+        HeapEntry(BufferedImage image) {
+            this.image = image;
+        }
+
+        @Override
+        public long size() {
+            return 4L * image.getWidth() * image.getHeight();
+        }
+
+        @Override
+        public BufferedImage image() {
+            return image;
+        }
+    }
+
+    private static class DirectEntry implements Entry {
+        private final BufferedImage image;
+
+        DirectEntry(BufferedImage source) {
+            int width = source.getWidth();
+            int height = source.getHeight();
+            IntBuffer pixels = ByteBuffer.allocateDirect(4 * width * height).order(ByteOrder.nativeOrder()).asIntBuffer();
+            PixelRows rows = PixelRows.of(source);
+            for (int y = 0; y < height; ++y)
+                pixels.put(rows.row(y), rows.offset(y), width);
+            pixels.flip();
+            // only the image header lives on the heap, hits neither allocate nor copy the pixels
+            image = DirectPixels.image(pixels, width, height);
+        }
+
+        @Override
+        public long size() {
+            return 4L * image.getWidth() * image.getHeight();
+        }
+
+        @Override
+        public BufferedImage image() {
+            return image;
+        }
+    }
+
+    private static class Key {
+        private final Class<?> owner;
+        private final String reference;
+        private final int index;
+
+        Key(Class<?> owner, String reference, int index) {
+            this.owner = owner;
+            this.reference = reference;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key key = (Key) o;
+            return index == key.index && owner == key.owner && reference.equals(key.reference);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(owner, reference, index);
+        }
+    }
+}
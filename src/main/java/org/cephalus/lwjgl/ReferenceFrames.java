@@ -0,0 +1,44 @@
+package org.cephalus.lwjgl;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.OptionalLong;
+
+/**
+ * Frames of a reference recording, addressed by their zero based index. Frames can be read in any order,
+ * concurrently.
+ */
+public interface ReferenceFrames extends Closeable {
+
+    int size();
+
+    /**
+     * Name of the frame, without extension, used to name difference images.
+     */
+    String name(int index);
+
+    BufferedImage read(int index) throws IOException;
+
+    /**
+     * {@link FrameHash} of the frame, when the recording stored one.
+     */
+    default OptionalLong hash(int index) {
+        return OptionalLong.empty();
+    }
+
+    /**
+     * Size of the tiles reported by {@link #changedTiles(int)}, or 0 when changes are not tracked.
+     */
+    default int tileSize() {
+        return 0;
+    }
+
+    /**
+     * Bit set of the tiles that changed since the previous frame, numbered row by row, or {@code null} when
+     * every tile must be assumed changed. The returned array must not be modified.
+     */
+    default long[] changedTiles(int index) throws IOException {
+        return null;
+    }
+}
@@ -0,0 +1,51 @@
+package org.cephalus.lwjgl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class ResourceFiles {
+
+    private static final Map<String, File> copies = new ConcurrentHashMap<>();
+
+    /**
+     * The file behind a resource, or a temporary copy of it when the resource is not a plain file (e.g. inside a jar).
+     * Copies are made once per resource and reused.
+     */
+    static File toFile(URL resource) throws IOException {
+        if ("file".equals(resource.getProtocol())) {
+            try {
+                return new File(resource.toURI());
+            } catch (URISyntaxException | IllegalArgumentException ex) {
+                // fall back to a copy
+            }
+        }
+        File copy = copies.get(resource.toString());
+        if (copy == null) {
+            copy = copy(resource);
+            File previous = copies.putIfAbsent(resource.toString(), copy);
+            if (previous != null) {
+                copy.delete();
+                copy = previous;
+            }
+        }
+        return copy;
+    }
+
+    private static File copy(URL resource) throws IOException {
+        String name = resource.getPath().substring(resource.getPath().lastIndexOf('/') + 1);
+        Path copy = Files.createTempFile("lwjgl-junit-", "-" + name);
+        copy.toFile().deleteOnExit();
+        try (InputStream in = resource.openStream()) {
+            Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return copy.toFile();
+    }
+}
@@ -0,0 +1,21 @@
+package org.cephalus.lwjgl;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Runs the test as a throughput benchmark: vsync disabled until the test ends, no {@link Fps} wait, no frame
+ * comparison, and a {@link ThroughputReport} of the frames rendered per second. Without the annotation, the
+ * {@value ThroughputReport#PROPERTY} system property turns it on for every test: {@code true} for
+ * {@link Iterations}, or a number of seconds. Tests with {@link Compare} still compare their frames then, for their
+ * {@link Iterations}, and the comparison is left out of the report.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Throughput {
+
+    /**
+     * Renders for this many seconds of wall-clock time instead of {@link Iterations}.
+     * Zero runs the iterations back-to-back.
+     */
+    double seconds() default 0;
+}
@@ -0,0 +1,121 @@
+package org.cephalus.lwjgl;
+
+import org.junit.runner.Description;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Frames rendered by a {@link Throughput} test and the wall-clock time they took, with the distribution of the
+ * {@link FrameTimings.Phase#FRAME frame times}. {@link #write()} saves it as JSON to
+ * {@code target/throughput/<class>.<method>.json}.
+ */
+public class ThroughputReport {
+
+    public static final String PROPERTY = "lwjgl.junit.throughput";
+    public static final File DIRECTORY = new File("target/throughput");
+
+    private final Description description;
+    private final long frames;
+    private final long nanos;
+    private final FrameTimings.Statistics frameTimes;
+
+    public ThroughputReport(Description description, long frames, long nanos, FrameTimings.Statistics frameTimes) {
+        this.description = description;
+        this.frames = frames;
+        this.nanos = nanos;
+        this.frameTimes = frameTimes;
+    }
+
+    /**
+     * Seconds to render for when {@value #PROPERTY} is a number, zero when it is {@code true}, or negative when
+     * throughput mode is not enabled by the property.
+     */
+    public static double secondsFromProperty() {
+        String value = System.getProperty(PROPERTY);
+        if (value == null || "false".equalsIgnoreCase(value))
+            return -1;
+        if ("true".equalsIgnoreCase(value) || value.isEmpty())
+            return 0;
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid " + PROPERTY + ": " + value, ex);
+        }
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public double getSeconds() {
+        return nanos / 1e9;
+    }
+
+    public double getFps() {
+        return nanos == 0 ? 0 : frames * 1e9 / nanos;
+    }
+
+    public double getMillisPerFrame() {
+        return frames == 0 ? 0 : nanos / 1e6 / frames;
+    }
+
+    public File write() throws IOException {
+        File file = new File(DIRECTORY, description.getClassName() + "." + description.getMethodName() + ".json");
+        if (!DIRECTORY.isDirectory() && !DIRECTORY.mkdirs())
+            throw new IOException("Could not create " + DIRECTORY);
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            out.write(toJson());
+        }
+        return file;
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{")
+                .append("\"class\": ").append(quote(description.getClassName()))
+                .append(", \"method\": ").append(quote(description.getMethodName()))
+                .append(", \"frames\": ").append(frames)
+                .append(", \"seconds\": ").append(number(getSeconds()))
+                .append(", \"fps\": ").append(number(getFps()))
+                .append(", \"msPerFrame\": ").append(number(getMillisPerFrame()));
+        if (frameTimes != null) {
+            json.append(", \"frameMs\": {")
+                    .append("\"min\": ").append(number(frameTimes.getMin() / 1e6))
+                    .append(", \"mean\": ").append(number(frameTimes.getMean() / 1e6))
+                    .append(", \"p50\": ").append(number(frameTimes.getP50() / 1e6))
+                    .append(", \"p95\": ").append(number(frameTimes.getP95() / 1e6))
+                    .append(", \"p99\": ").append(number(frameTimes.getP99() / 1e6))
+                    .append(", \"max\": ").append(number(frameTimes.getMax() / 1e6))
+                    .append("}");
+        }
+        return json.append("}").append(System.lineSeparator()).toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s: %d frames in %.3f s, %.1f fps, %.3f ms/frame"
+                , description.getDisplayName(), frames, getSeconds(), getFps(), getMillisPerFrame());
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.4f", value);
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\')
+                quoted.append('\\').append(c);
+            else if (c < 0x20)
+                quoted.append(String.format("\\u%04x", (int) c));
+            else
+                quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,123 @@
+package org.cephalus.lwjgl;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.OptionalLong;
+
+/**
+ * Lightweight reference: a zip of {@link #thumbnail(BufferedImage, int) thumbnails} of the recorded frames,
+ * with the {@link FrameHash} of every full size frame and the thumbnail {@link #SCALE_PROPERTY scale} in its
+ * manifest. Rendered frames matching the hash are identical to the recording; others can only be compared
+ * at thumbnail size.
+ */
+public class ThumbnailReferenceFrames implements ReferenceFrames {
+
+    public static final String EXTENSION = ".golden.zip";
+    public static final String SCALE_PROPERTY = "thumbnail.scale";
+    public static final int DEFAULT_SCALE = 8;
+
+    private final ZipReferenceFrames thumbnails;
+    private final int scale;
+
+    public ThumbnailReferenceFrames(File file) throws IOException {
+        this(new ZipReferenceFrames(file));
+    }
+
+    private ThumbnailReferenceFrames(ZipReferenceFrames thumbnails) throws IOException {
+        this.thumbnails = thumbnails;
+        String scale = thumbnails.getProperty(SCALE_PROPERTY);
+        try {
+            this.scale = scale == null ? 0 : Integer.parseInt(scale.trim());
+        } catch (NumberFormatException ex) {
+            thumbnails.close();
+            throw new IOException("Invalid " + SCALE_PROPERTY + ": " + scale, ex);
+        }
+        if (this.scale < 1) {
+            thumbnails.close();
+            throw new IOException("Missing " + SCALE_PROPERTY + ", not a thumbnail reference");
+        }
+    }
+
+    public static ThumbnailReferenceFrames open(URL resource) throws IOException {
+        return new ThumbnailReferenceFrames(ZipReferenceFrames.open(resource));
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    @Override
+    public int size() {
+        return thumbnails.size();
+    }
+
+    @Override
+    public String name(int index) {
+        return thumbnails.name(index);
+    }
+
+    @Override
+    public OptionalLong hash(int index) {
+        return thumbnails.hash(index);
+    }
+
+    /**
+     * The thumbnail of the frame, to be compared with the {@link #thumbnail(BufferedImage, int) thumbnail}
+     * of the rendered one.
+     */
+    @Override
+    public BufferedImage read(int index) throws IOException {
+        return thumbnails.read(index);
+    }
+
+    @Override
+    public void close() throws IOException {
+        thumbnails.close();
+    }
+
+    /**
+     * Averages every {@code scale} x {@code scale} block of pixels, per channel. Blocks on the right and bottom
+     * edges may be smaller.
+     */
+    public static BufferedImage thumbnail(BufferedImage image, int scale) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int thumbnailWidth = (width + scale - 1) / scale;
+        int thumbnailHeight = (height + scale - 1) / scale;
+
+        BufferedImage thumbnail = new BufferedImage(thumbnailWidth, thumbnailHeight, BufferedImage.TYPE_INT_RGB);
+        int[] out = ((DataBufferInt) thumbnail.getRaster().getDataBuffer()).getData();
+        int[] sums = new int[thumbnailWidth * 3];
+
+        PixelRows rows = PixelRows.of(image);
+        for (int ty = 0; ty < thumbnailHeight; ++ty) {
+            Arrays.fill(sums, 0);
+            int top = ty * scale;
+            int bottom = Math.min(top + scale, height);
+            for (int y = top; y < bottom; ++y) {
+                int[] row = rows.row(y);
+                int offset = rows.offset(y);
+                for (int x = 0; x < width; ++x) {
+                    int rgb = row[offset + x];
+                    int i = x / scale * 3;
+                    sums[i] += (rgb >> 16) & 0xff;
+                    sums[i + 1] += (rgb >> 8) & 0xff;
+                    sums[i + 2] += rgb & 0xff;
+                }
+            }
+            for (int tx = 0; tx < thumbnailWidth; ++tx) {
+                int count = (Math.min(tx * scale + scale, width) - tx * scale) * (bottom - top);
+                int i = tx * 3;
+                int half = count / 2;
+                out[ty * thumbnailWidth + tx] = ((sums[i] + half) / count) << 16
+                        | ((sums[i + 1] + half) / count) << 8
+                        | ((sums[i + 2] + half) / count);
+            }
+        }
+        return thumbnail;
+    }
+}
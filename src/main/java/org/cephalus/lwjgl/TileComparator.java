@@ -0,0 +1,135 @@
+package org.cephalus.lwjgl;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Compares consecutive frames tile by tile, remembering the divergence and a hash of the actual pixels of every
+ * tile. A tile that is unchanged in the reference (as reported by {@link ReferenceFrames#changedTiles(int)}) and
+ * whose actual pixels hash the same as on the previous frame keeps its previous divergence instead of being
+ * diffed again. Frames without change information, or where most reference tiles changed, are compared with
+ * {@link ImageComparator#compare(BufferedImage, BufferedImage, float, int)}. Results are identical to
+ * {@link ImageComparator#compare(BufferedImage, BufferedImage, float)}.
+ */
+public class TileComparator {
+
+    private final int tileSize;
+    private final int parallelThreshold;
+
+    private Tiles tiles;
+    private long[] hashes;
+    private long[] sums;
+    private long[] bandHashes;
+    private boolean[] dirty;
+    private boolean primed;
+
+    public TileComparator(int tileSize) {
+        this(tileSize, 0);
+    }
+
+    /**
+     * @param parallelThreshold passed to {@link ImageComparator#compare(BufferedImage, BufferedImage, float, int)}
+     *                          for the frames compared in full
+     */
+    public TileComparator(int tileSize, int parallelThreshold) {
+        if (tileSize < 1)
+            throw new IllegalArgumentException("Tile size must be at least 1: " + tileSize);
+        this.tileSize = tileSize;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * @param expectedChanged tiles of {@code expected} that changed since the previously compared reference frame,
+     *                        or {@code null} if unknown or if the frames are not consecutive
+     */
+    public Comparison compare(BufferedImage expected, long[] expectedChanged, BufferedImage actual, float maxDivergence) {
+        int width = expected.getWidth();
+        int height = expected.getHeight();
+        if (expectedChanged == null || actual.getWidth() != width || actual.getHeight() != height) {
+            primed = false;
+            return ImageComparator.compare(expected, actual, maxDivergence, parallelThreshold);
+        }
+
+        if (tiles == null || tiles.width != width || tiles.height != height) {
+            tiles = new Tiles(width, height, tileSize);
+            hashes = new long[tiles.count];
+            sums = new long[tiles.count];
+            bandHashes = new long[tiles.columns];
+            dirty = new boolean[tiles.columns];
+            primed = false;
+        }
+        // diffing most tiles anyway, a full comparison is cheaper than hashing them first
+        if (primed && changedCount(expectedChanged) * 2 > tiles.count) {
+            primed = false;
+            return ImageComparator.compare(expected, actual, maxDivergence, parallelThreshold);
+        }
+
+        PixelRows expectedRows = PixelRows.of(expected);
+        PixelRows actualRows = PixelRows.of(actual);
+        long all = 0xFFL * width * height;
+        long sum = 0;
+        for (int band = 0; band < tiles.rows; ++band) {
+            int first = band * tiles.columns;
+            int top = band * tileSize;
+            int bottom = Math.min(top + tileSize, height);
+
+            hashBand(actualRows, top, bottom);
+            boolean diff = false;
+            for (int column = 0; column < tiles.columns; ++column) {
+                int tile = first + column;
+                dirty[column] = !primed || Tiles.isSet(expectedChanged, tile) || bandHashes[column] != hashes[tile];
+                hashes[tile] = bandHashes[column];
+                diff |= dirty[column];
+            }
+            if (diff)
+                sumBand(expectedRows, actualRows, first, top, bottom);
+
+            for (int column = 0; column < tiles.columns; ++column)
+                sum += sums[first + column];
+            if (sum / (float) all > maxDivergence) {
+                primed = false;
+                return new Comparison(expected, actual, sum / (float) all, false);
+            }
+        }
+
+        primed = true;
+        return new Comparison(expected, actual, sum / (float) all, true);
+    }
+
+    private void hashBand(PixelRows rows, int top, int bottom) {
+        for (int column = 0; column < tiles.columns; ++column)
+            bandHashes[column] = column;
+        for (int y = top; y < bottom; ++y) {
+            int[] row = rows.row(y);
+            int offset = rows.offset(y);
+            for (int column = 0; column < tiles.columns; ++column)
+                bandHashes[column] = FrameHash.mixRow(bandHashes[column], row, offset + column * tileSize,
+                        tiles.tileWidth(column));
+        }
+    }
+
+    private void sumBand(PixelRows expectedRows, PixelRows actualRows, int first, int top, int bottom) {
+        for (int column = 0; column < tiles.columns; ++column)
+            if (dirty[column])
+                sums[first + column] = 0;
+        for (int y = top; y < bottom; ++y) {
+            int[] expectedRow = expectedRows.row(y);
+            int expectedOffset = expectedRows.offset(y);
+            int[] actualRow = actualRows.row(y);
+            int actualOffset = actualRows.offset(y);
+            for (int column = 0; column < tiles.columns; ++column) {
+                if (!dirty[column])
+                    continue;
+                int x = column * tileSize;
+                sums[first + column] += DivergenceKernel.BEST.sumRow(expectedRow, expectedOffset + x,
+                        actualRow, actualOffset + x, tiles.tileWidth(column));
+            }
+        }
+    }
+
+    private static int changedCount(long[] changed) {
+        int count = 0;
+        for (long word : changed)
+            count += Long.bitCount(word);
+        return count;
+    }
+}
@@ -0,0 +1,66 @@
+package org.cephalus.lwjgl;
+
+/**
+ * Splits a {@code width} x {@code height} frame of packed pixels, stored row by row, into square tiles of
+ * {@code size} pixels, numbered row by row. Tiles on the right and bottom edges are clipped.
+ */
+class Tiles {
+
+    final int width;
+    final int height;
+    final int size;
+    final int columns;
+    final int rows;
+    final int count;
+
+    Tiles(int width, int height, int size) {
+        this.width = width;
+        this.height = height;
+        this.size = size;
+        this.columns = (width + size - 1) / size;
+        this.rows = (height + size - 1) / size;
+        this.count = columns * rows;
+    }
+
+    int x(int tile) {
+        return (tile % columns) * size;
+    }
+
+    int y(int tile) {
+        return (tile / columns) * size;
+    }
+
+    int tileWidth(int tile) {
+        return Math.min(size, width - x(tile));
+    }
+
+    int tileHeight(int tile) {
+        return Math.min(size, height - y(tile));
+    }
+
+    int pixels(int tile) {
+        return tileWidth(tile) * tileHeight(tile);
+    }
+
+    int words() {
+        return (count + 63) >>> 6;
+    }
+
+    boolean equal(int[] pixels1, int[] pixels2, int tile) {
+        int tileWidth = tileWidth(tile);
+        int end = (y(tile) + tileHeight(tile)) * width;
+        for (int row = y(tile) * width + x(tile); row < end; row += width)
+            for (int i = row; i < row + tileWidth; ++i)
+                if (pixels1[i] != pixels2[i])
+                    return false;
+        return true;
+    }
+
+    static boolean isSet(long[] bits, int tile) {
+        return (bits[tile >>> 6] & (1L << tile)) != 0;
+    }
+
+    static void set(long[] bits, int tile) {
+        bits[tile >>> 6] |= 1L << tile;
+    }
+}
@@ -0,0 +1,13 @@
+package org.cephalus.lwjgl;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Number of iterations run before the measured {@link Iterations}. They are neither timed nor compared, and the
+ * first reference frame is compared with the first measured iteration.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Warmup {
+    int value();
+}
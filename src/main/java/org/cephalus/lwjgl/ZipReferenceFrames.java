@@ -0,0 +1,122 @@
+package org.cephalus.lwjgl;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reference frames stored as PNG entries of a zip file, in the order they were written. Any frame can be read
+ * directly, by index or by name, without inflating the others. The {@link #MANIFEST} entry, when present, maps
+ * frame names to their {@link FrameHash}.
+ */
+public class ZipReferenceFrames implements ReferenceFrames {
+
+    public static final String MANIFEST = "manifest.properties";
+
+    private final ZipFile zip;
+    private final List<ZipEntry> entries;
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final Map<String, Long> hashes = new HashMap<>();
+    private final Properties manifest = new Properties();
+
+    public ZipReferenceFrames(File file) throws IOException {
+        this.zip = new ZipFile(file);
+        List<ZipEntry> images = new ArrayList<>();
+        Enumeration<? extends ZipEntry> all = zip.entries();
+        while (all.hasMoreElements()) {
+            ZipEntry entry = all.nextElement();
+            if (!entry.isDirectory() && entry.getName().toLowerCase().endsWith(".png")) {
+                indexes.put(stripExtension(entry.getName()), images.size());
+                images.add(entry);
+            }
+        }
+        this.entries = Collections.unmodifiableList(images);
+
+        ZipEntry manifest = zip.getEntry(MANIFEST);
+        if (manifest != null)
+            readManifest(manifest);
+    }
+
+    private void readManifest(ZipEntry entry) throws IOException {
+        try (InputStream in = zip.getInputStream(entry)) {
+            manifest.load(in);
+        }
+        for (String name : manifest.stringPropertyNames()) {
+            if (!indexes.containsKey(name))
+                continue;
+            try {
+                hashes.put(name, FrameHash.parse(manifest.getProperty(name)));
+            } catch (NumberFormatException ex) {
+                throw new IOException("Invalid hash of " + name + " in " + zip.getName(), ex);
+            }
+        }
+    }
+
+    public static ZipReferenceFrames open(URL resource) throws IOException {
+        return new ZipReferenceFrames(ResourceFiles.toFile(resource));
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String name(int index) {
+        return stripExtension(entries.get(index).getName());
+    }
+
+    /**
+     * Index of the frame with the given name (without extension), or -1.
+     */
+    public int indexOf(String name) {
+        Integer index = indexes.get(name);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Value of a {@link #MANIFEST} entry that is not a frame hash, or null.
+     */
+    public String getProperty(String key) {
+        return manifest.getProperty(key);
+    }
+
+    @Override
+    public OptionalLong hash(int index) {
+        Long hash = index < 0 || index >= entries.size() ? null : hashes.get(name(index));
+        return hash == null ? OptionalLong.empty() : OptionalLong.of(hash);
+    }
+
+    @Override
+    public BufferedImage read(int index) throws IOException {
+        if (index < 0 || index >= entries.size())
+            throw new IOException("Missing reference frame " + index + " of " + entries.size());
+        try (InputStream in = zip.getInputStream(entries.get(index))) {
+            return ImageIO.read(in);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+
+    static String stripExtension(String name) {
+        int slash = name.lastIndexOf('/');
+        int dot = name.lastIndexOf('.');
+        return dot <= slash ? name.substring(slash + 1) : name.substring(slash + 1, dot);
+    }
+}
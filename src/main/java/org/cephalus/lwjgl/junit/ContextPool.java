@@ -0,0 +1,69 @@
+package org.cephalus.lwjgl.junit;
+
+import org.cephalus.lwjgl.ContextBackend;
+import org.cephalus.lwjgl.ContextBackends;
+import org.junit.runner.Result;
+import org.junit.runner.notification.RunListener;
+import org.junit.runner.notification.RunNotifier;
+import org.lwjgl.LWJGLException;
+
+/**
+ * Creates the context of each test method through the {@link ContextBackends#current() current backend}. With
+ * {@code -Dlwjgl.junit.reuseContext=true} the context stays open between test methods and classes as long as
+ * they ask for the same profile: it is resized when the window size differs, and the GL state is
+ * {@link GlState#reset reset} after every test. It is destroyed when the profile changes or when the test run
+ * finishes.
+ */
+class ContextPool {
+
+    static final String REUSE_PROPERTY = "lwjgl.junit.reuseContext";
+
+    private static RunNotifier registered;
+
+    static boolean isReuseEnabled() {
+        return Boolean.getBoolean(REUSE_PROPERTY);
+    }
+
+    static void acquire(int profile, int width, int height, String title) throws LWJGLException {
+        ContextBackend backend = ContextBackends.current();
+        if (isReuseEnabled() && backend.isCreated() && profile == backend.getProfile()) {
+            if (backend.getWidth() != width || backend.getHeight() != height) {
+                backend.resize(width, height);
+                GlState.reset(backend);
+            }
+            backend.setTitle(title);
+            return;
+        }
+
+        if (backend.isCreated())
+            backend.destroy();
+        backend.create(profile, width, height, title);
+    }
+
+    static void release() {
+        ContextBackend backend = ContextBackends.current();
+        if (isReuseEnabled() && backend.isCreated()) {
+            GlState.reset(backend);
+            return;
+        }
+        backend.destroy();
+    }
+
+    /**
+     * Destroys reused contexts and stops the render threads once the run notified by {@code notifier} is over.
+     */
+    static synchronized void destroyAfterRun(RunNotifier notifier) {
+        if (!isReuseEnabled() && !RenderThreadScheduler.isParallel() || notifier == registered)
+            return;
+        registered = notifier;
+        ContextBackend backend = ContextBackends.current();
+        notifier.addListener(new RunListener() {
+            @Override
+            public void testRunFinished(Result result) {
+                RenderThreadScheduler.shutdown();
+                if (backend.isCreated())
+                    backend.destroy();
+            }
+        });
+    }
+}
@@ -0,0 +1,161 @@
+package org.cephalus.lwjgl.junit;
+
+import org.cephalus.lwjgl.ContextBackend;
+import org.lwjgl.opengl.ContextCapabilities;
+import org.lwjgl.opengl.GLContext;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_PACK_IMAGE_HEIGHT;
+import static org.lwjgl.opengl.GL12.GL_PACK_SKIP_IMAGES;
+import static org.lwjgl.opengl.GL12.GL_TEXTURE_3D;
+import static org.lwjgl.opengl.GL12.GL_UNPACK_IMAGE_HEIGHT;
+import static org.lwjgl.opengl.GL12.GL_UNPACK_SKIP_IMAGES;
+import static org.lwjgl.opengl.GL13.GL_MULTISAMPLE;
+import static org.lwjgl.opengl.GL13.GL_SAMPLE_ALPHA_TO_COVERAGE;
+import static org.lwjgl.opengl.GL13.GL_SAMPLE_ALPHA_TO_ONE;
+import static org.lwjgl.opengl.GL13.GL_SAMPLE_COVERAGE;
+import static org.lwjgl.opengl.GL13.GL_TEXTURE0;
+import static org.lwjgl.opengl.GL13.GL_TEXTURE_CUBE_MAP;
+import static org.lwjgl.opengl.GL13.glActiveTexture;
+import static org.lwjgl.opengl.GL14.glBlendColor;
+import static org.lwjgl.opengl.GL14.glBlendEquation;
+import static org.lwjgl.opengl.GL14.GL_FUNC_ADD;
+import static org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER;
+import static org.lwjgl.opengl.GL15.glBindBuffer;
+import static org.lwjgl.opengl.GL20.GL_MAX_COMBINED_TEXTURE_IMAGE_UNITS;
+import static org.lwjgl.opengl.GL20.glUseProgram;
+import static org.lwjgl.opengl.GL21.GL_PIXEL_PACK_BUFFER;
+import static org.lwjgl.opengl.GL21.GL_PIXEL_UNPACK_BUFFER;
+import static org.lwjgl.opengl.GL30.GL_CLIP_DISTANCE0;
+import static org.lwjgl.opengl.GL30.GL_FRAMEBUFFER;
+import static org.lwjgl.opengl.GL30.GL_FRAMEBUFFER_SRGB;
+import static org.lwjgl.opengl.GL30.GL_MAX_CLIP_DISTANCES;
+import static org.lwjgl.opengl.GL30.GL_RASTERIZER_DISCARD;
+import static org.lwjgl.opengl.GL30.GL_RENDERBUFFER;
+import static org.lwjgl.opengl.GL30.GL_TEXTURE_1D_ARRAY;
+import static org.lwjgl.opengl.GL30.GL_TEXTURE_2D_ARRAY;
+import static org.lwjgl.opengl.GL30.GL_TRANSFORM_FEEDBACK_BUFFER;
+import static org.lwjgl.opengl.GL30.glBindFramebuffer;
+import static org.lwjgl.opengl.GL30.glBindRenderbuffer;
+import static org.lwjgl.opengl.GL30.glBindVertexArray;
+import static org.lwjgl.opengl.GL31.GL_COPY_READ_BUFFER;
+import static org.lwjgl.opengl.GL31.GL_COPY_WRITE_BUFFER;
+import static org.lwjgl.opengl.GL31.GL_PRIMITIVE_RESTART;
+import static org.lwjgl.opengl.GL31.GL_TEXTURE_BUFFER;
+import static org.lwjgl.opengl.GL31.GL_TEXTURE_RECTANGLE;
+import static org.lwjgl.opengl.GL31.GL_UNIFORM_BUFFER;
+import static org.lwjgl.opengl.GL32.GL_DEPTH_CLAMP;
+import static org.lwjgl.opengl.GL32.GL_PROGRAM_POINT_SIZE;
+import static org.lwjgl.opengl.GL32.GL_TEXTURE_2D_MULTISAMPLE;
+import static org.lwjgl.opengl.GL32.GL_TEXTURE_2D_MULTISAMPLE_ARRAY;
+import static org.lwjgl.opengl.GL32.GL_TEXTURE_CUBE_MAP_SEAMLESS;
+import static org.lwjgl.opengl.GL33.glBindSampler;
+
+/**
+ * Brings a reused context back to the default state of a new one, so that tests sharing it stay isolated.
+ * Objects the tests created are not deleted.
+ */
+class GlState {
+
+    private static final int[] TEXTURE_TARGETS = {GL_TEXTURE_1D, GL_TEXTURE_2D, GL_TEXTURE_3D, GL_TEXTURE_CUBE_MAP, GL_TEXTURE_2D_ARRAY
+            , GL_TEXTURE_1D_ARRAY};
+    private static final int[] TEXTURE_TARGETS_31 = {GL_TEXTURE_RECTANGLE};
+    private static final int[] TEXTURE_TARGETS_32 = {GL_TEXTURE_2D_MULTISAMPLE, GL_TEXTURE_2D_MULTISAMPLE_ARRAY};
+    private static final int[] DISABLED = {GL_BLEND, GL_CULL_FACE, GL_DEPTH_TEST, GL_SCISSOR_TEST, GL_STENCIL_TEST
+            , GL_POLYGON_OFFSET_FILL, GL_POLYGON_OFFSET_LINE, GL_POLYGON_OFFSET_POINT, GL_COLOR_LOGIC_OP
+            , GL_LINE_SMOOTH, GL_POLYGON_SMOOTH, GL_SAMPLE_ALPHA_TO_COVERAGE, GL_SAMPLE_ALPHA_TO_ONE, GL_SAMPLE_COVERAGE
+            , GL_RASTERIZER_DISCARD, GL_FRAMEBUFFER_SRGB};
+    private static final int[] DISABLED_31 = {GL_PRIMITIVE_RESTART};
+    private static final int[] DISABLED_32 = {GL_DEPTH_CLAMP, GL_PROGRAM_POINT_SIZE, GL_TEXTURE_CUBE_MAP_SEAMLESS};
+    private static final int[] PIXEL_STORE = {GL_PACK_ROW_LENGTH, GL_PACK_SKIP_PIXELS, GL_PACK_SKIP_ROWS
+            , GL_PACK_IMAGE_HEIGHT, GL_PACK_SKIP_IMAGES, GL_PACK_SWAP_BYTES
+            , GL_UNPACK_ROW_LENGTH, GL_UNPACK_SKIP_PIXELS, GL_UNPACK_SKIP_ROWS
+            , GL_UNPACK_IMAGE_HEIGHT, GL_UNPACK_SKIP_IMAGES, GL_UNPACK_SWAP_BYTES};
+
+    static void reset(ContextBackend backend) {
+        ContextCapabilities capabilities = GLContext.getCapabilities();
+        int width = backend.getWidth();
+        int height = backend.getHeight();
+
+        glBindFramebuffer(GL_FRAMEBUFFER, backend.getFramebuffer());
+        glBindRenderbuffer(GL_RENDERBUFFER, 0);
+        glUseProgram(0);
+        glBindVertexArray(0);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+        glBindBuffer(GL_PIXEL_UNPACK_BUFFER, 0);
+        glBindBuffer(GL_TRANSFORM_FEEDBACK_BUFFER, 0);
+        if (capabilities.OpenGL31) {
+            glBindBuffer(GL_UNIFORM_BUFFER, 0);
+            glBindBuffer(GL_COPY_READ_BUFFER, 0);
+            glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+            glBindBuffer(GL_TEXTURE_BUFFER, 0);
+        }
+
+        int units = glGetInteger(GL_MAX_COMBINED_TEXTURE_IMAGE_UNITS);
+        for (int unit = 0; unit < units; ++unit) {
+            glActiveTexture(GL_TEXTURE0 + unit);
+            bindNone(TEXTURE_TARGETS);
+            if (capabilities.OpenGL31)
+                bindNone(TEXTURE_TARGETS_31);
+            if (capabilities.OpenGL32)
+                bindNone(TEXTURE_TARGETS_32);
+            if (capabilities.OpenGL33)
+                glBindSampler(unit, 0);
+        }
+        glActiveTexture(GL_TEXTURE0);
+
+        disable(DISABLED);
+        if (capabilities.OpenGL31)
+            disable(DISABLED_31);
+        if (capabilities.OpenGL32)
+            disable(DISABLED_32);
+        int clipDistances = glGetInteger(GL_MAX_CLIP_DISTANCES);
+        for (int i = 0; i < clipDistances; ++i)
+            glDisable(GL_CLIP_DISTANCE0 + i);
+        glEnable(GL_DITHER);
+        glEnable(GL_MULTISAMPLE);
+
+        glBlendFunc(GL_ONE, GL_ZERO);
+        glBlendEquation(GL_FUNC_ADD);
+        glBlendColor(0, 0, 0, 0);
+        glDepthFunc(GL_LESS);
+        glDepthRange(0, 1);
+        glDepthMask(true);
+        glColorMask(true, true, true, true);
+        glStencilFunc(GL_ALWAYS, 0, ~0);
+        glStencilOp(GL_KEEP, GL_KEEP, GL_KEEP);
+        glStencilMask(~0);
+        glCullFace(GL_BACK);
+        glFrontFace(GL_CCW);
+        glPolygonMode(GL_FRONT_AND_BACK, GL_FILL);
+        glPolygonOffset(0, 0);
+        glLineWidth(1);
+        glPixelStorei(GL_PACK_ALIGNMENT, 4);
+        glPixelStorei(GL_UNPACK_ALIGNMENT, 4);
+        for (int parameter : PIXEL_STORE)
+            glPixelStorei(parameter, 0);
+        glDrawBuffer(backend.getColorBuffer());
+        glReadBuffer(backend.getColorBuffer());
+        glViewport(0, 0, width, height);
+        glScissor(0, 0, width, height);
+
+        glClearColor(0, 0, 0, 0);
+        glClearDepth(1);
+        glClearStencil(0);
+        glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT | GL_STENCIL_BUFFER_BIT);
+
+        while (glGetError() != GL_NO_ERROR) {
+        }
+    }
+
+    private static void bindNone(int[] textureTargets) {
+        for (int target : textureTargets)
+            glBindTexture(target, 0);
+    }
+
+    private static void disable(int[] capabilities) {
+        for (int capability : capabilities)
+            glDisable(capability);
+    }
+}
@@ -0,0 +1,108 @@
+package org.cephalus.lwjgl.junit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.TestClass;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Method handles of the {@code @Test}, {@code @Before} and {@code @After} methods of a test class, resolved once
+ * per class. Invoking them skips the argument array and the {@code InvocationTargetException} wrapping of
+ * reflection: exceptions thrown by the methods propagate unchanged, as with
+ * {@link FrameworkMethod#invokeExplosively}. A method that can not be invoked that way, because it is not accessible
+ * or takes parameters, fails when it is invoked, with the exception reflection would have thrown.
+ */
+class InvocationPlan {
+
+    interface Invoker {
+        void invoke(Object target) throws Throwable;
+    }
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Object.class);
+
+    private final List<Invoker> befores;
+    private final List<Invoker> afters;
+    private final Map<Method, Invoker> tests = new HashMap<>();
+
+    InvocationPlan(TestClass testClass) {
+        befores = invokers(testClass.getAnnotatedMethods(Before.class));
+        afters = invokers(testClass.getAnnotatedMethods(After.class));
+        for (FrameworkMethod method : testClass.getAnnotatedMethods(Test.class))
+            tests.put(method.getMethod(), invoker(method.getMethod()));
+    }
+
+    List<Invoker> befores() {
+        return befores;
+    }
+
+    List<Invoker> afters() {
+        return afters;
+    }
+
+    Invoker test(FrameworkMethod method) {
+        Invoker invoker = tests.get(method.getMethod());
+        return invoker != null ? invoker : invoker(method.getMethod());
+    }
+
+    private static List<Invoker> invokers(List<FrameworkMethod> methods) {
+        List<Invoker> invokers = new ArrayList<>(methods.size());
+        for (FrameworkMethod method : methods)
+            invokers.add(invoker(method.getMethod()));
+        return Collections.unmodifiableList(invokers);
+    }
+
+    static Invoker invoker(Method method) {
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException ex) {
+            return new FailingInvoker(ex);
+        }
+        if (Modifier.isStatic(method.getModifiers()))
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        try {
+            return new HandleInvoker(handle.asType(INVOKER_TYPE));
+        } catch (WrongMethodTypeException ex) {
+            return new FailingInvoker(new IllegalArgumentException("wrong number of arguments: " + method, ex));
+        }
+    }
+
+    private static class HandleInvoker implements Invoker {
+        private final MethodHandle handle;
+
+        HandleInvoker(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public void invoke(Object target) throws Throwable {
+            handle.invokeExact(target);
+        }
+    }
+
+    private static class FailingInvoker implements Invoker {
+        private final Exception error;
+
+        FailingInvoker(Exception error) {
+            this.error = error;
+        }
+
+        @Override
+        public void invoke(Object target) throws Exception {
+            throw error;
+        }
+    }
+}
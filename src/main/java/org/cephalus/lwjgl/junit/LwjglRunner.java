@@ -1,15 +1,35 @@
 package org.cephalus.lwjgl.junit;
 
+import org.cephalus.lwjgl.AsyncReadback;
+import org.cephalus.lwjgl.CachedReferenceFrames;
 import org.cephalus.lwjgl.Compare;
+import org.cephalus.lwjgl.Comparison;
 import org.cephalus.lwjgl.Configuration;
+import org.cephalus.lwjgl.ContextBackends;
 import org.cephalus.lwjgl.Fps;
+import org.cephalus.lwjgl.FrameBudget;
+import org.cephalus.lwjgl.GpuComparator;
+import org.cephalus.lwjgl.GpuTimed;
+import org.cephalus.lwjgl.GpuTimer;
+import org.cephalus.lwjgl.FrameHash;
+import org.cephalus.lwjgl.FrameSampling;
+import org.cephalus.lwjgl.FrameTimings;
 import org.cephalus.lwjgl.Iterations;
+import org.cephalus.lwjgl.OutputDirectory;
+import org.cephalus.lwjgl.PrefetchingReferenceFrames;
 import org.cephalus.lwjgl.Profile;
+import org.cephalus.lwjgl.RawFrameArchive;
 import org.cephalus.lwjgl.Recorder;
+import org.cephalus.lwjgl.ReferenceFrameCache;
+import org.cephalus.lwjgl.ReferenceFrames;
 import org.cephalus.lwjgl.Swap;
+import org.cephalus.lwjgl.Throughput;
+import org.cephalus.lwjgl.ThroughputReport;
+import org.cephalus.lwjgl.ThumbnailReferenceFrames;
+import org.cephalus.lwjgl.TileComparator;
+import org.cephalus.lwjgl.Warmup;
 import org.cephalus.lwjgl.Window;
-import org.junit.After;
-import org.junit.Before;
+import org.cephalus.lwjgl.ZipReferenceFrames;
 import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
@@ -25,10 +45,6 @@ import org.junit.runners.model.InitializationError;
 import org.junit.runners.model.Statement;
 import org.junit.runners.model.TestClass;
 import org.lwjgl.LWJGLException;
-import org.lwjgl.opengl.ContextAttribs;
-import org.lwjgl.opengl.Display;
-import org.lwjgl.opengl.DisplayMode;
-import org.lwjgl.opengl.PixelFormat;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
@@ -39,10 +55,15 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
-
-import static org.cephalus.lwjgl.ImageComparator.calculateDivergence;
+import java.util.OptionalLong;
+
+import static org.cephalus.lwjgl.FrameTimings.Phase.COMPARE;
+import static org.cephalus.lwjgl.FrameTimings.Phase.FRAME;
+import static org.cephalus.lwjgl.FrameTimings.Phase.GPU;
+import static org.cephalus.lwjgl.FrameTimings.Phase.INVOKE;
+import static org.cephalus.lwjgl.FrameTimings.Phase.SWAP;
+import static org.cephalus.lwjgl.FrameTimings.Phase.SYNC;
+import static org.cephalus.lwjgl.ImageComparator.compare;
 import static org.cephalus.lwjgl.ImageComparator.getDifferenceImage;
 import static org.cephalus.lwjgl.Swap.Type.AUTO;
 import static org.junit.Assert.assertNotNull;
@@ -50,8 +71,19 @@ import static org.junit.Assert.assertTrue;
 
 public class LwjglRunner extends ParentRunner<FrameworkMethod> {
 
+    private final InvocationPlan plan;
+
     public LwjglRunner(Class<?> klass) throws InitializationError {
         super(klass);
+        plan = new InvocationPlan(getTestClass());
+        if (RenderThreadScheduler.isParallel())
+            setScheduler(new RenderThreadScheduler());
+    }
+
+    @Override
+    public void run(RunNotifier notifier) {
+        ContextPool.destroyAfterRun(notifier);
+        super.run(notifier);
     }
 
     @Override
@@ -75,10 +107,17 @@ public class LwjglRunner extends ParentRunner<FrameworkMethod> {
         if (isIgnored(testMethod)) {
             notifier.fireTestIgnored(testDescription);
         } else {
+            // methods running in parallel may record under the same names, each method writes to its own directory
+            boolean parallel = RenderThreadScheduler.isParallel();
+            if (parallel)
+                OutputDirectory.set(new File(new File(OutputDirectory.DEFAULT, getTestClass().getName()), testMethod.getName()));
             try {
-                new Runner(notifier, getTestClass(), testMethod, testDescription).run();
+                new Runner(notifier, getTestClass(), plan, testMethod, testDescription).run();
             } catch (Throwable e) {
                 notifier.fireTestFailure(new Failure(testDescription, e));
+            } finally {
+                if (parallel)
+                    OutputDirectory.clear();
             }
         }
     }
@@ -87,14 +126,16 @@ public class LwjglRunner extends ParentRunner<FrameworkMethod> {
 
         private final RunNotifier notifier;
         private final TestClass testClass;
+        private final InvocationPlan plan;
         private final FrameworkMethod testMethod;
         private final Description testDescription;
 
         private Object testInstance;
 
-        public Runner(RunNotifier notifier, TestClass testClass, FrameworkMethod testMethod, Description testDescription) {
+        public Runner(RunNotifier notifier, TestClass testClass, InvocationPlan plan, FrameworkMethod testMethod, Description testDescription) {
             this.notifier = notifier;
             this.testClass = testClass;
+            this.plan = plan;
             this.testMethod = testMethod;
             this.testDescription = testDescription;
         }
@@ -104,7 +145,7 @@ public class LwjglRunner extends ParentRunner<FrameworkMethod> {
             try {
                 testInstance = testClass.getOnlyConstructor().newInstance();
 
-                Statement test = new LoopRunner(notifier, testClass, testMethod, testDescription, testInstance);
+                Statement test = new LoopRunner(notifier, testClass, plan, testMethod, testDescription, testInstance);
                 test = withRules(test);
                 test.evaluate();
             } catch (Throwable ex) {
@@ -123,7 +164,9 @@ public class LwjglRunner extends ParentRunner<FrameworkMethod> {
 
         private final RunNotifier notifier;
         private final TestClass testClass;
+        private final InvocationPlan plan;
         private final FrameworkMethod testMethod;
+        private final InvocationPlan.Invoker testInvoker;
         private final Description testDescription;
         private final Object testInstance;
         private final String title;
@@ -134,11 +177,18 @@ public class LwjglRunner extends ParentRunner<FrameworkMethod> {
         private List<Throwable> errors = new ArrayList<>();
 
         private int iterations = 0;
+        private FrameTimings timings;
+        private GpuTimer gpuTimer;
+        private long frames;
+        private long loopNanos;
+        private Boolean vSyncEnabled;
 
-        public LoopRunner(RunNotifier notifier, TestClass testClass, FrameworkMethod testMethod, Description testDescription, Object testInstance) {
+        public LoopRunner(RunNotifier notifier, TestClass testClass, InvocationPlan plan, FrameworkMethod testMethod, Description testDescription, Object testInstance) {
             this.notifier = notifier;
             this.testClass = testClass;
+            this.plan = plan;
             this.testMethod = testMethod;
+            this.testInvoker = plan.test(testMethod);
             this.testDescription = testDescription;
             this.testInstance = testInstance;
             this.title = testDescription.getMethodName();
@@ -146,23 +196,38 @@ public class LwjglRunner extends ParentRunner<FrameworkMethod> {
         }
 
         @Override
-        public void evaluate() throws LWJGLException {
+        public void evaluate() {
             notifier.fireTestStarted(testDescription);
 
-            this.config = getConfiguration(testMethod);
-
-            createWindow();
+            // the configuration opens the reference, so it is closed with the window even when the window can not be created
+            Throwable setupError = null;
+            boolean started = false;
             try {
+                this.config = getConfiguration(testMethod);
+                createWindow();
+                started = true;
                 runBefores();
                 runTest();
                 runAfters();
             } catch (Throwable error) {
-                errors.add(error);
+                if(started)
+                    errors.add(error);
+                else
+                    setupError = error;
             } finally {
+                disposeGpuTimer();
+                closeCompare();
+                restoreVSync();
                 disposeWindow();
             }
 
-            if(!exceptions.isEmpty() && errors.isEmpty()){
+            publishTimings();
+
+            if(setupError != null) {
+                notifier.fireTestFailure(new Failure(testDescription, setupError));
+                for (Throwable error : errors)
+                    notifier.fireTestFailure(new Failure(testDescription, error));
+            } else if(!exceptions.isEmpty() && errors.isEmpty()){
                 notifier.fireTestFailure(new Failure(testDescription, new AssertionError("Expected exception: "
                         + exceptions.get(0).getName())));
             } else {
@@ -173,57 +238,133 @@ public class LwjglRunner extends ParentRunner<FrameworkMethod> {
             }
 
             notifier.fireTestFinished(testDescription);
+            FrameTimings.release(testDescription);
         }
 
         public void createWindow() throws LWJGLException {
-            int major = config.profile / 100;
-            int minor = config.profile % 100 / 10;
-            PixelFormat pixelFormat = new PixelFormat();
-            ContextAttribs contextAttributes = new ContextAttribs(major, minor)
-                    .withForwardCompatible(true)
-                    .withProfileCore(true);
-
-            Display.setDisplayMode(new DisplayMode(config.width, config.height));
-            Display.setTitle(title);
-            Display.create(pixelFormat, contextAttributes);
+            ContextPool.acquire(config.profile, config.width, config.height, title);
         }
 
         public void disposeWindow() {
-            Display.destroy();
+            ContextPool.release();
         }
 
-        private void invoke(FrameworkMethod method, final Object... params) {
+        private void invoke(InvocationPlan.Invoker invoker) {
             try {
-                method.invokeExplosively(testInstance, params);
+                invoker.invoke(testInstance);
             } catch (Throwable e) {
                 errors.add(e);
             }
         }
 
-        private void invokeAll(List<FrameworkMethod> methods, final Object... params) {
-            for (FrameworkMethod each : methods) {
-                invoke(each, params);
+        private void invokeAll(List<InvocationPlan.Invoker> invokers) {
+            for (InvocationPlan.Invoker each : invokers) {
+                invoke(each);
             }
         }
 
         public void runBefores() {
-            List<FrameworkMethod> befores = testClass.getAnnotatedMethods(Before.class);
-            invokeAll(befores);
+            invokeAll(plan.befores());
         }
 
         public void runAfters() {
-            List<FrameworkMethod> afters = testClass.getAnnotatedMethods(After.class);
-            invokeAll(afters);
+            invokeAll(plan.afters());
         }
 
         public void runTest() throws LWJGLException {
-            while (errors.isEmpty() && ++iterations <= config.iterations) {
-                invoke(testMethod);
-                compare();
-                if(config.swap)
-                    Display.swapBuffers();
+            if(config.throughput >= 0) {
+                vSyncEnabled = ContextBackends.current().isVSyncEnabled();
+                ContextBackends.current().setVSyncEnabled(false);
+            }
+            warmup();
+            timings = FrameTimings.start();
+            if(config.gpuQueries > 0)
+                gpuTimer = new GpuTimer(config.gpuQueries, timings.get(GPU));
+            long loopStart = System.nanoTime();
+            long deadline = loopStart + (long) (config.throughput * 1e9);
+            long comparing = 0;
+            while (errors.isEmpty() && nextIteration(deadline)) {
+                long start = System.nanoTime();
+                long compared = 0;
+                if(gpuTimer != null)
+                    gpuTimer.begin();
+                invoke(testInvoker);
+                if(gpuTimer != null)
+                    gpuTimer.end();
+                long time = timings.record(INVOKE, start);
+                if(config.compare != null) {
+                    long compareStart = time;
+                    compare();
+                    time = timings.record(COMPARE, time);
+                    compared = time - compareStart;
+                    comparing += compared;
+                }
+                if(config.swap) {
+                    ContextBackends.current().swapBuffers();
+                    time = timings.record(SWAP, time);
+                }
+                timings.get(FRAME).record(time - start - compared);
                 if(config.fps > 0 && errors.isEmpty()) {
-                    Display.sync(config.fps);
+                    ContextBackends.current().sync(config.fps);
+                    timings.record(SYNC, time);
+                }
+                ++frames;
+            }
+            // frames compared under the throughput property are reported without the comparison, as the frame times are
+            loopNanos = System.nanoTime() - loopStart - comparing;
+            if(gpuTimer != null)
+                gpuTimer.finish();
+            finishCompare();
+        }
+
+        private void reportThroughput(FrameTimings.Report timings) {
+            ThroughputReport report = new ThroughputReport(testDescription, frames, loopNanos, timings.get(FRAME));
+            System.out.println(report);
+            try {
+                report.write();
+            } catch (IOException error) {
+                errors.add(error);
+            }
+        }
+
+        private void disposeGpuTimer() {
+            if(gpuTimer != null) {
+                try {
+                    gpuTimer.dispose();
+                } catch (Throwable error) {
+                    errors.add(error);
+                }
+            }
+        }
+
+        private boolean nextIteration(long deadline) {
+            ++iterations;
+            if(config.throughput > 0)
+                return System.nanoTime() - deadline < 0;
+            return iterations <= config.iterations;
+        }
+
+        private void warmup() throws LWJGLException {
+            for (int i = 0; errors.isEmpty() && i < config.warmup; ++i) {
+                invoke(testInvoker);
+                if(config.swap)
+                    ContextBackends.current().swapBuffers();
+            }
+        }
+
+        private void publishTimings() {
+            if(timings == null)
+                return;
+            FrameTimings.Report report = timings.publish(testDescription);
+            if(FrameTimings.isPrintEnabled())
+                System.out.println(report);
+            if(config.throughput >= 0)
+                reportThroughput(report);
+            if(config.budget != null && errors.isEmpty()) {
+                try {
+                    report.assertWithin(config.budget);
+                } catch (AssertionError error) {
+                    errors.add(error);
                 }
             }
         }
@@ -252,15 +393,44 @@ public class LwjglRunner extends ParentRunner<FrameworkMethod> {
                 config.compare.compareNext();
             }
         }
+
+        private void finishCompare() {
+            if(config.compare != null && errors.isEmpty()) {
+                config.compare.finish();
+            }
+        }
+
+        /**
+         * The Display keeps the setting for the next window, which may belong to a test that is not a benchmark.
+         */
+        private void restoreVSync() {
+            if(vSyncEnabled != null)
+                ContextBackends.current().setVSyncEnabled(vSyncEnabled);
+        }
+
+        private void closeCompare() {
+            if(config != null && config.compare != null) {
+                try {
+                    config.compare.close();
+                } catch (Throwable error) {
+                    errors.add(error);
+                }
+            }
+        }
     }
 
-    private static class CombinedConfiguration {
+    static class CombinedConfiguration {
         private int profile;
         private int width;
         private int height;
         private int fps;
         private int iterations;
+        private int warmup;
         private boolean swap;
+        private int gpuQueries;
+        private FrameBudget budget;
+        private double throughput = ThroughputReport.secondsFromProperty();
+        private boolean benchmark;
         private CombinedCompare compare;
 
         public CombinedConfiguration(Configuration defaultConfiguration, TestClass testClass, FrameworkMethod testMethod) {
@@ -268,7 +438,14 @@ public class LwjglRunner extends ParentRunner<FrameworkMethod> {
 
             applyAll(testClass);
             applyAll(testMethod);
-            compare = CombinedCompare.create(testClass, testMethod);
+            if(throughput >= 0)
+                fps = 0;
+            // a benchmark measures rendering alone, other tests keep comparing under the throughput property
+            if(!benchmark)
+                compare = CombinedCompare.create(testClass, testMethod, iterations);
+            // a timed run does not know how many frames it renders, so they could not be matched with the reference
+            if(compare != null && throughput > 0)
+                throughput = 0;
         }
 
         private void applyAll(Annotatable source) {
@@ -282,8 +459,16 @@ public class LwjglRunner extends ParentRunner<FrameworkMethod> {
             apply(fps);
             Iterations iterations = source.getAnnotation(Iterations.class);
             apply(iterations);
+            Warmup warmup = source.getAnnotation(Warmup.class);
+            apply(warmup);
             Swap swap = source.getAnnotation(Swap.class);
             apply(swap);
+            GpuTimed gpuTimed = source.getAnnotation(GpuTimed.class);
+            apply(gpuTimed);
+            FrameBudget budget = source.getAnnotation(FrameBudget.class);
+            apply(budget);
+            Throughput throughput = source.getAnnotation(Throughput.class);
+            apply(throughput);
         }
 
         private void apply(Configuration configuration) {
@@ -294,6 +479,7 @@ public class LwjglRunner extends ParentRunner<FrameworkMethod> {
             height = configuration.height();
             fps = configuration.fps();
             iterations = configuration.iterations();
+            warmup = configuration.warmup();
             swap = configuration.swap() == AUTO;
         }
 
@@ -322,11 +508,36 @@ public class LwjglRunner extends ParentRunner<FrameworkMethod> {
             iterations = annotation.value();
         }
 
+        private void apply(Warmup annotation) {
+            if(annotation == null)
+                return;
+            warmup = annotation.value();
+        }
+
         private void apply(Swap annotation) {
             if(annotation == null)
                 return;
             swap = annotation.value() == AUTO;
         }
+
+        private void apply(GpuTimed annotation) {
+            if(annotation == null)
+                return;
+            gpuQueries = annotation.queries();
+        }
+
+        private void apply(Throughput annotation) {
+            if(annotation == null)
+                return;
+            throughput = annotation.seconds();
+            benchmark = true;
+        }
+
+        private void apply(FrameBudget annotation) {
+            if(annotation == null)
+                return;
+            budget = annotation;
+        }
     }
 
     private static class CombinedCompare {
@@ -336,15 +547,30 @@ public class LwjglRunner extends ParentRunner<FrameworkMethod> {
 
         private String reference;
         private float maxDivergence;
-
-        private ZipInputStream zip;
+        private int parallelThreshold;
+        private int asyncReadback;
+        private int prefetch;
+        private int every;
+        private int[] sampledFrames;
+        private int sample;
+        private long seed;
+
+        private FrameSampling sampling;
+        private ReferenceFrames frames;
+        private AsyncReadback readback;
+        private int frame;
+        private TileComparator tileComparator;
+        private int lastCompared = -1;
+        private int thumbnailScale;
+        private Compare.Backend backend;
+        private GpuComparator gpuComparator;
 
         public CombinedCompare(Class<?> javaClass, String methodName) {
             this.javaClass = javaClass;
             this.methodName = methodName;
         }
 
-        public static CombinedCompare create(TestClass testClass, FrameworkMethod testMethod) {
+        public static CombinedCompare create(TestClass testClass, FrameworkMethod testMethod, int iterations) {
             Compare methodCompare = testMethod.getAnnotation(Compare.class);
             Compare classCompare = testClass.getAnnotation(Compare.class);
 
@@ -355,38 +581,149 @@ public class LwjglRunner extends ParentRunner<FrameworkMethod> {
             instance.apply(testMethod);
             instance.apply(classCompare);
             instance.apply(methodCompare);
-            instance.start();
+            instance.start(iterations);
             return instance;
         }
 
         public void compareNext() {
+            int index = frame++;
+            if(!sampling.includes(index))
+                return;
             try {
-                ZipEntry entry = zip.getNextEntry();
-                BufferedImage expected = ImageIO.read(zip);
-                BufferedImage actual = Recorder.takeSnapshot();
-                BufferedImage diff = getDifferenceImage(expected, actual);
-                float divergence = calculateDivergence(diff);
-                try {
-                    assertTrue(divergence <= maxDivergence);
-                } catch (AssertionError ex) {
-                    save(methodName, entry.getName(), diff);
-                    throw ex;
-                }
+                if(gpuComparator != null)
+                    compareOnGpu(index);
+                else if(readback != null)
+                    readback.capture(index);
+                else
+                    compareFrame(index, Recorder.takeSnapshot());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        public void finish() {
+            if(readback == null)
+                return;
+            try {
+                readback.flush();
             } catch (IOException ex) {
                 throw new UncheckedIOException(ex);
             }
         }
 
+        public void close() throws IOException {
+            if(readback != null)
+                readback.dispose();
+            if(gpuComparator != null)
+                gpuComparator.dispose();
+            frames.close();
+        }
+
+        private void compareOnGpu(int index) throws IOException {
+            Comparison comparison = gpuComparator.compare(frames.read(index), maxDivergence);
+            lastCompared = index;
+            try {
+                assertTrue(comparison.passed());
+            } catch (AssertionError ex) {
+                save(methodName, frames.name(index) + ".png", comparison.getDifferenceImage());
+                throw ex;
+            }
+        }
+
+        private void compareFrame(int index, BufferedImage actual) throws IOException {
+            OptionalLong hash = frames.hash(index);
+            if(hash.isPresent() && hash.getAsLong() == FrameHash.of(actual))
+                return;
+
+            BufferedImage expected = frames.read(index);
+            Comparison comparison;
+            if(tileComparator != null) {
+                long[] changed = index == lastCompared + 1 ? frames.changedTiles(index) : null;
+                comparison = tileComparator.compare(expected, changed, actual, maxDivergence);
+            } else if(thumbnailScale > 0) {
+                comparison = compare(expected, ThumbnailReferenceFrames.thumbnail(actual, thumbnailScale), maxDivergence);
+            } else {
+                comparison = compare(expected, actual, maxDivergence, parallelThreshold);
+            }
+            lastCompared = index;
+            try {
+                assertTrue(comparison.passed());
+            } catch (AssertionError ex) {
+                if(thumbnailScale > 0)
+                    saveFullDifference(index, actual, comparison);
+                else
+                    save(methodName, frames.name(index) + ".png", comparison.getDifferenceImage());
+                throw ex;
+            }
+        }
+
+        /**
+         * Thumbnail references only hold a reduced frame: the full size reference is used for the diff when it is
+         * available, otherwise the thumbnail diff and the rendered frame are saved.
+         */
+        private void saveFullDifference(int index, BufferedImage actual, Comparison comparison) throws IOException {
+            String frameName = frames.name(index) + ".png";
+            URL full = javaClass.getResource(reference + ".zip");
+            if(full != null) {
+                try (ZipReferenceFrames fullFrames = ZipReferenceFrames.open(full)) {
+                    int fullIndex = fullFrames.indexOf(frames.name(index));
+                    if(fullIndex >= 0) {
+                        save(methodName, frameName, getDifferenceImage(fullFrames.read(fullIndex), actual));
+                        return;
+                    }
+                }
+            }
+            save(methodName, frameName, comparison.getDifferenceImage());
+            File file = new File(OutputDirectory.get(), "actual_" + methodName + "_" + frameName);
+            ImageIO.write(actual, "PNG", file);
+        }
+
         private void save(String methodName, String frameName, BufferedImage diff) throws IOException {
-            File file = new File("target/recorded-frames/diff_" + methodName + "_" + frameName);
+            File file = new File(OutputDirectory.get(), "diff_" + methodName + "_" + frameName);
             file.getParentFile().mkdirs();
             ImageIO.write(diff, "PNG", file);
         }
 
-        private void start() {
+        private void start(int iterations) {
+            if(sampledFrames.length > 0)
+                sampling = FrameSampling.of(sampledFrames);
+            else if(sample > 0)
+                sampling = FrameSampling.random(sample, seed, iterations);
+            else
+                sampling = FrameSampling.every(every, iterations);
+            try {
+                frames = openReference();
+                if(frames instanceof ThumbnailReferenceFrames)
+                    thumbnailScale = ((ThumbnailReferenceFrames) frames).getScale();
+                if(ReferenceFrameCache.shared().isEnabled())
+                    frames = new CachedReferenceFrames(frames, ReferenceFrameCache.shared(), javaClass, reference);
+                // frames with a recorded hash are usually never decoded on the CPU, prefetching them would be wasted work
+                boolean hashed = backend != Compare.Backend.GPU && frames.size() > 0 && frames.hash(0).isPresent();
+                if(prefetch > 0 && !hashed)
+                    frames = new PrefetchingReferenceFrames(frames, prefetch, PrefetchingReferenceFrames.DEFAULT_MAX_BYTES, sampling);
+                if(frames.tileSize() > 0)
+                    tileComparator = new TileComparator(frames.tileSize(), parallelThreshold);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            if(backend == Compare.Backend.GPU && thumbnailScale == 0)
+                gpuComparator = new GpuComparator();
+            else if(asyncReadback > 0)
+                readback = new AsyncReadback(asyncReadback, this::compareFrame);
+        }
+
+        private ReferenceFrames openReference() throws IOException {
+            URL archive = javaClass.getResource(reference + RawFrameArchive.EXTENSION);
+            if(archive != null)
+                return RawFrameArchive.open(archive, reference);
+
+            URL golden = javaClass.getResource(reference + ThumbnailReferenceFrames.EXTENSION);
+            if(golden != null)
+                return ThumbnailReferenceFrames.open(golden);
+
             URL resource = javaClass.getResource(reference + ".zip");
             assertNotNull("Reference not found!", resource);
-            zip = new ZipInputStream(javaClass.getResourceAsStream(reference + ".zip"));
+            return ZipReferenceFrames.open(resource);
         }
 
         private void apply(FrameworkMethod method) {
@@ -401,6 +738,14 @@ public class LwjglRunner extends ParentRunner<FrameworkMethod> {
             if(!compare.reference().isEmpty())
                 this.reference = compare.reference();
             this.maxDivergence = compare.maxDivergence();
+            this.parallelThreshold = compare.parallelThreshold();
+            this.asyncReadback = compare.asyncReadback();
+            this.prefetch = compare.prefetch();
+            this.every = compare.every();
+            this.sampledFrames = compare.frames();
+            this.sample = compare.sample();
+            this.seed = compare.seed();
+            this.backend = compare.backend();
         }
     }
 }
@@ -0,0 +1,131 @@
+package org.cephalus.lwjgl.junit;
+
+import org.cephalus.lwjgl.ContextBackend;
+import org.cephalus.lwjgl.ContextBackends;
+import org.cephalus.lwjgl.DisplayBackend;
+import org.junit.runners.model.RunnerScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Runs test methods on a pool of render threads shared by all test classes, each thread with its own
+ * {@link ContextBackends#current() context}. Enabled with {@code -Dlwjgl.junit.threads=N} for backends that
+ * render offscreen; the {@link DisplayBackend} only has one window and always runs sequentially.
+ * Every method runs on a single thread, so its notifications stay in order.
+ */
+class RenderThreadScheduler implements RunnerScheduler {
+
+    static final String THREADS_PROPERTY = "lwjgl.junit.threads";
+
+    private static RenderThreads threads;
+
+    private final List<Future<?>> scheduled = new ArrayList<>();
+
+    static int threadCount() {
+        return Integer.getInteger(THREADS_PROPERTY, 1);
+    }
+
+    static boolean isParallel() {
+        return threadCount() > 1 && !(ContextBackends.current() instanceof DisplayBackend);
+    }
+
+    @Override
+    public void schedule(Runnable childStatement) {
+        FutureTask<Void> task = new FutureTask<>(childStatement, null);
+        scheduled.add(task);
+        pool().submit(task);
+    }
+
+    @Override
+    public void finished() {
+        boolean interrupted = false;
+        for (Future<?> task : scheduled) {
+            while (true) {
+                try {
+                    task.get();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                } catch (ExecutionException ex) {
+                    throw new IllegalStateException("Test method failed outside of its notifier", ex.getCause());
+                }
+            }
+        }
+        scheduled.clear();
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Stops the render threads, destroying their contexts. The next parallel class starts new ones.
+     */
+    static synchronized void shutdown() {
+        if (threads != null) {
+            threads.shutdown();
+            threads = null;
+        }
+    }
+
+    private static synchronized RenderThreads pool() {
+        if (threads == null)
+            threads = new RenderThreads(threadCount());
+        return threads;
+    }
+
+    private static class RenderThreads {
+        private static final Runnable STOP = () -> {
+        };
+
+        private final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+        private final Thread[] workers;
+
+        RenderThreads(int count) {
+            workers = new Thread[count];
+            for (int i = 0; i < count; ++i) {
+                workers[i] = new Thread(this::work, "lwjgl-render-" + (i + 1));
+                workers[i].setDaemon(true);
+                workers[i].start();
+            }
+        }
+
+        void submit(Runnable task) {
+            queue.add(task);
+        }
+
+        void shutdown() {
+            for (Thread ignored : workers)
+                queue.add(STOP);
+            for (Thread worker : workers) {
+                try {
+                    worker.join();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void work() {
+            try {
+                while (true) {
+                    Runnable task = queue.take();
+                    if (task == STOP)
+                        return;
+                    task.run();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                ContextBackend backend = ContextBackends.current();
+                if (backend.isCreated())
+                    backend.destroy();
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.cephalus.lwjgl;
+
+/**
+ * Uses the {@code jdk.incubator.vector} kernel when the module is resolved
+ * ({@code --add-modules jdk.incubator.vector}) and {@code lwjgl.junit.simd} is not {@code false}.
+ */
+class DivergenceKernels {
+
+    static DivergenceKernel load() {
+        if (!Boolean.parseBoolean(System.getProperty("lwjgl.junit.simd", "true")))
+            return DivergenceKernel.SCALAR;
+        try {
+            return new VectorDivergenceKernel();
+        } catch (LinkageError ex) {
+            return DivergenceKernel.SCALAR;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.cephalus.lwjgl;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+class VectorDivergenceKernel extends DivergenceKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    long sumRow(int[] row1, int offset1, int[] row2, int offset2, int width) {
+        IntVector sums = IntVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(width);
+        int x = 0;
+        for (; x < bound; x += SPECIES.length()) {
+            IntVector rgb1 = IntVector.fromArray(SPECIES, row1, offset1 + x);
+            IntVector rgb2 = IntVector.fromArray(SPECIES, row2, offset2 + x);
+            IntVector r = channel(rgb1, 16).sub(channel(rgb2, 16)).abs();
+            IntVector g = channel(rgb1, 8).sub(channel(rgb2, 8)).abs();
+            IntVector b = channel(rgb1, 0).sub(channel(rgb2, 0)).abs();
+            sums = sums.add(r.add(g).add(b).min(0xFF));
+        }
+        long sum = sums.reduceLanesToLong(VectorOperators.ADD);
+        return sum + super.sumRow(row1, offset1 + x, row2, offset2 + x, width - x);
+    }
+
+    private static IntVector channel(IntVector rgb, int shift) {
+        return rgb.lanewise(VectorOperators.LSHR, shift).and(0xFF);
+    }
+}
@@ -21,6 +21,7 @@ import static org.lwjgl.opengl.GL11.GL_FALSE;
 import static org.lwjgl.opengl.GL11.GL_FLOAT;
 import static org.lwjgl.opengl.GL11.GL_TRIANGLES;
 import static org.lwjgl.opengl.GL11.glClear;
+import static org.lwjgl.opengl.GL11.glColorMask;
 import static org.lwjgl.opengl.GL11.glDrawArrays;
 import static org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER;
 import static org.lwjgl.opengl.GL15.GL_STATIC_DRAW;
@@ -121,6 +122,7 @@ public class CompareTest {
 
     @After
     public void dispose() {
+        glColorMask(true, true, true, true);
         glBindVertexArray(0);
         glDeleteBuffers(color);
         glDeleteBuffers(errPosition);
@@ -147,6 +149,13 @@ public class CompareTest {
         glUseProgram(0);
     }
 
+    @Test
+    @Warmup(3)
+    @Compare(reference = "triangle")
+    public void triangleAfterWarmup() throws LWJGLException, IOException {
+        triangle();
+    }
+
     @Test(expected = AssertionError.class)
     @Compare(reference = "triangle")
     public void differentTriangle() throws LWJGLException, IOException {
@@ -158,6 +167,25 @@ public class CompareTest {
         glUseProgram(0);
     }
 
+    @Test
+    @Compare(reference = "triangle", backend = Compare.Backend.GPU)
+    public void triangleOnGpu() throws LWJGLException, IOException {
+        triangle();
+    }
+
+    @Test(expected = AssertionError.class)
+    @Compare(reference = "triangle", backend = Compare.Backend.GPU)
+    public void differentTriangleOnGpu() throws LWJGLException, IOException {
+        differentTriangle();
+    }
+
+    @Test(expected = AssertionError.class)
+    @Compare(reference = "triangle", backend = Compare.Backend.GPU)
+    public void differentTriangleOnGpuWithColorMaskDisabled() throws LWJGLException, IOException {
+        differentTriangle();
+        glColorMask(false, false, false, false);
+    }
+
     private static int loadShader(String resource, int type) {
         int shader = glCreateShader(type);
         InputStream source = CompareTest.class.getResourceAsStream(resource);
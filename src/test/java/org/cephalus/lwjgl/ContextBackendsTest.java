@@ -0,0 +1,35 @@
+package org.cephalus.lwjgl;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ContextBackendsTest {
+
+    @After
+    public void clearProperty() {
+        System.clearProperty(ContextBackends.BACKEND_PROPERTY);
+    }
+
+    @Test
+    public void selectsBackendByProperty() {
+        assertThat(ContextBackends.create()).isInstanceOf(DisplayBackend.class);
+
+        System.setProperty(ContextBackends.BACKEND_PROPERTY, "pbuffer");
+        assertThat(ContextBackends.create()).isInstanceOf(PbufferBackend.class);
+
+        System.setProperty(ContextBackends.BACKEND_PROPERTY, PbufferBackend.class.getName());
+        assertThat(ContextBackends.create()).isInstanceOf(PbufferBackend.class);
+    }
+
+    @Test
+    public void rejectsUnknownBackends() {
+        System.setProperty(ContextBackends.BACKEND_PROPERTY, String.class.getName());
+        assertThatThrownBy(ContextBackends::create).isInstanceOf(IllegalStateException.class);
+
+        System.setProperty(ContextBackends.BACKEND_PROPERTY, "missing.Backend");
+        assertThatThrownBy(ContextBackends::create).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,58 @@
+package org.cephalus.lwjgl;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeNoException;
+import static org.junit.Assume.assumeTrue;
+
+public class DivergenceKernelTest {
+
+    @Test
+    public void bestKernelMatchesScalar() {
+        assertSameSums(DivergenceKernel.BEST);
+    }
+
+    @Test
+    public void vectorKernelMatchesScalar() throws Exception {
+        assertSameSums(vectorKernel());
+    }
+
+    @Test
+    public void bestKernelIsVectorWhenAvailable() throws Exception {
+        DivergenceKernel vector = vectorKernel();
+        assumeTrue("SIMD disabled", Boolean.parseBoolean(System.getProperty("lwjgl.junit.simd", "true")));
+        assertThat(DivergenceKernel.BEST).isExactlyInstanceOf(vector.getClass());
+    }
+
+    private static DivergenceKernel vectorKernel() throws Exception {
+        try {
+            return (DivergenceKernel) Class.forName("org.cephalus.lwjgl.VectorDivergenceKernel").getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException | LinkageError ex) {
+            assumeNoException("Vector API not available", ex);
+            return null;
+        }
+    }
+
+    private static void assertSameSums(DivergenceKernel kernel) {
+        Random random = new Random(42);
+        for (int width : new int[]{0, 1, 3, 7, 8, 15, 16, 17, 63, 640, 1921}) {
+            int[] row1 = new int[width + 5];
+            int[] row2 = new int[width + 9];
+            for (int i = 0; i < row1.length; ++i)
+                row1[i] = random.nextInt();
+            for (int i = 0; i < row2.length; ++i)
+                row2[i] = random.nextBoolean() ? random.nextInt() : row1[Math.min(i, row1.length - 1)] ^ random.nextInt(8);
+
+            for (int offset1 = 0; offset1 < 5; offset1 += 2) {
+                for (int offset2 = 0; offset2 < 9; offset2 += 4) {
+                    long expected = DivergenceKernel.SCALAR.sumRow(row1, offset1, row2, offset2, width);
+                    long actual = kernel.sumRow(row1, offset1, row2, offset2, width);
+                    assertThat(actual).as("width %d offsets %d/%d", width, offset1, offset2).isEqualTo(expected);
+                }
+            }
+        }
+    }
+}
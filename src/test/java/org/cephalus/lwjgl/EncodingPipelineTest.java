@@ -0,0 +1,58 @@
+package org.cephalus.lwjgl;
+
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class EncodingPipelineTest {
+
+    @Test
+    public void writesFramesInSubmissionOrder() throws IOException {
+        List<String> names = new ArrayList<>();
+        List<Integer> colors = new ArrayList<>();
+        EncodingPipeline pipeline = new EncodingPipeline(4, 3, "PNG", (name, data) -> {
+            names.add(name);
+            colors.add(ImageIO.read(new ByteArrayInputStream(data)).getRGB(0, 0) & 0xFFFFFF);
+        });
+
+        for (int i = 0; i < 20; ++i)
+            pipeline.submit("frame_" + i, solid(64 + i * 16, 64, i));
+        pipeline.close();
+
+        assertThat(names).hasSize(20);
+        for (int i = 0; i < 20; ++i) {
+            assertThat(names.get(i)).isEqualTo("frame_" + i);
+            assertThat(colors.get(i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void closeReportsEncoderErrors() throws IOException {
+        List<String> names = new ArrayList<>();
+        EncodingPipeline pipeline = new EncodingPipeline(2, 8, "PNG", (name, data) -> names.add(name));
+
+        pipeline.submit("first", solid(8, 8, 1));
+        pipeline.submit("broken", null);
+        pipeline.submit("last", solid(8, 8, 2));
+        Throwable error = catchThrowable(pipeline::close);
+
+        assertThat(error).isInstanceOf(IOException.class).hasMessageContaining("broken");
+        assertThat(names).containsExactly("first", "last");
+    }
+
+    private static BufferedImage solid(int width, int height, int rgb) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; ++y)
+            for (int x = 0; x < width; ++x)
+                image.setRGB(x, y, rgb);
+        return image;
+    }
+}
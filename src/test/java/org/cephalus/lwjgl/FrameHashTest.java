@@ -0,0 +1,36 @@
+package org.cephalus.lwjgl;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FrameHashTest {
+
+    @Test
+    public void sameHashForAllImageTypes() {
+        BufferedImage image = ImageComparatorTest.randomImage(new Random(13), 37, 23);
+        long hash = FrameHash.of(image);
+
+        for (int type : new int[]{BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR
+                , BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR})
+            assertThat(FrameHash.of(ImageComparatorTest.convert(image, type))).as("type %d", type).isEqualTo(hash);
+        assertThat(FrameHash.of(ImageComparatorTest.convert(image, BufferedImage.TYPE_INT_RGB).getSubimage(0, 0, 37, 23)))
+                .isEqualTo(hash);
+    }
+
+    @Test
+    public void differentHashForDifferentContent() {
+        BufferedImage image = ImageComparatorTest.randomImage(new Random(14), 16, 16);
+        long hash = FrameHash.of(image);
+
+        image.setRGB(15, 15, image.getRGB(15, 15) ^ 1);
+
+        assertThat(FrameHash.of(image)).isNotEqualTo(hash);
+        assertThat(FrameHash.of(new BufferedImage(8, 2, BufferedImage.TYPE_INT_RGB)))
+                .isNotEqualTo(FrameHash.of(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB)));
+        assertThat(FrameHash.parse(FrameHash.toString(hash))).isEqualTo(hash);
+    }
+}
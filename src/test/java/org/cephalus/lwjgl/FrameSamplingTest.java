@@ -0,0 +1,44 @@
+package org.cephalus.lwjgl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FrameSamplingTest {
+
+    @Test
+    public void everyNthFrameWithFirstAndLast() {
+        assertThat(selected(FrameSampling.every(10, 25), 25)).containsExactly(0, 10, 20, 24);
+        assertThat(selected(FrameSampling.every(1, 3), 3)).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    public void explicitFrames() {
+        FrameSampling sampling = FrameSampling.of(7, 2, 7);
+
+        assertThat(selected(sampling, 10)).containsExactly(2, 7);
+        assertThat(sampling.next(3)).isEqualTo(7);
+        assertThat(sampling.next(8)).isEqualTo(-1);
+    }
+
+    @Test
+    public void randomSampleIsReproducible() {
+        List<Integer> sample = selected(FrameSampling.random(12, 42L, 120), 120);
+
+        assertThat(sample).hasSize(12).allMatch(i -> i >= 0 && i < 120);
+        assertThat(selected(FrameSampling.random(12, 42L, 120), 120)).isEqualTo(sample);
+        assertThat(selected(FrameSampling.random(12, 43L, 120), 120)).isNotEqualTo(sample);
+        assertThat(selected(FrameSampling.random(5, 1L, 3), 3)).containsExactly(0, 1, 2);
+    }
+
+    private static List<Integer> selected(FrameSampling sampling, int iterations) {
+        List<Integer> frames = new ArrayList<>();
+        for (int i = 0; i < iterations; ++i)
+            if (sampling.includes(i))
+                frames.add(i);
+        return frames;
+    }
+}
@@ -0,0 +1,66 @@
+package org.cephalus.lwjgl;
+
+import org.junit.Test;
+import org.junit.runner.Description;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.cephalus.lwjgl.FrameTimings.Phase.FRAME;
+import static org.cephalus.lwjgl.FrameTimings.Phase.INVOKE;
+
+public class FrameTimingsTest {
+
+    @Test
+    public void publishesRecordedPhases() {
+        Description description = Description.createTestDescription(FrameTimingsTest.class, "published");
+        FrameTimings timings = new FrameTimings();
+        timings.get(INVOKE).record(2_000_000);
+
+        FrameTimings.Report report = timings.publish(description);
+
+        assertThat(FrameTimings.of(description)).isSameAs(report);
+        assertThat(report.getPhases()).containsOnlyKeys(INVOKE);
+        assertThat(report.get(INVOKE).getP99()).isEqualTo(2_000_000);
+        assertThat(report.toString()).contains("invoke", "2.000");
+    }
+
+    @Test
+    public void releasesReports() {
+        Description description = Description.createTestDescription(FrameTimingsTest.class, "released");
+        new FrameTimings().publish(description);
+
+        FrameTimings.release(description);
+
+        assertThat(FrameTimings.of(description)).isNull();
+    }
+
+    @Test
+    public void withinBudget() {
+        frames(10_000_000, 12_000_000).assertWithin(Budget.class.getAnnotation(FrameBudget.class));
+    }
+
+    @Test
+    public void listsViolations() {
+        FrameTimings.Report report = frames(17_000_000, 40_000_000);
+
+        assertThatThrownBy(() -> report.assertWithin(Budget.class.getAnnotation(FrameBudget.class)))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("Frame budget exceeded over 100 frames")
+                .hasMessageContaining("p99 40.000 ms > 16.000 ms")
+                .hasMessageContaining("fps 57.3 < 60.0")
+                .hasMessageContaining("frame");
+    }
+
+    private static FrameTimings.Report frames(long common, long slowest) {
+        FrameTimings timings = new FrameTimings();
+        for (int i = 0; i < 98; ++i)
+            timings.get(FRAME).record(common);
+        timings.get(FRAME).record(slowest);
+        timings.get(FRAME).record(slowest);
+        return timings.publish(Description.createTestDescription(FrameTimingsTest.class, "frames"));
+    }
+
+    @FrameBudget(p99 = 16, minFps = 60)
+    private static class Budget {
+    }
+}
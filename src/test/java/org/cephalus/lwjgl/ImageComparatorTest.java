@@ -0,0 +1,160 @@
+package org.cephalus.lwjgl;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static java.lang.Math.min;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ImageComparatorTest {
+
+    private static final int[] TYPES = {
+            BufferedImage.TYPE_INT_RGB
+            , BufferedImage.TYPE_INT_ARGB
+            , BufferedImage.TYPE_INT_BGR
+            , BufferedImage.TYPE_3BYTE_BGR
+            , BufferedImage.TYPE_4BYTE_ABGR
+    };
+
+    @Test
+    public void sameDivergenceForAllImageTypes() {
+        BufferedImage expected = randomImage(new Random(1), 67, 45);
+        BufferedImage actual = noisy(new Random(2), expected, 40);
+        float reference = naiveDivergence(expected, actual);
+
+        for (int expectedType : TYPES) {
+            for (int actualType : TYPES) {
+                Comparison comparison = ImageComparator.compare(convert(expected, expectedType), convert(actual, actualType), 1f);
+
+                assertThat(comparison.passed()).isTrue();
+                assertThat(comparison.getDivergence()).isEqualTo(reference);
+            }
+        }
+    }
+
+    @Test
+    public void sameDivergenceAsDifferenceImage() {
+        BufferedImage expected = randomImage(new Random(3), 31, 17);
+        BufferedImage actual = noisy(new Random(4), expected, 200);
+
+        float divergence = ImageComparator.calculateDivergence(ImageComparator.getDifferenceImage(expected, actual));
+
+        assertThat(divergence).isEqualTo(naiveDivergence(expected, actual));
+        assertThat(ImageComparator.compare(expected, actual, 1f).getDivergence()).isEqualTo(divergence);
+    }
+
+    @Test
+    public void subImages() {
+        BufferedImage expected = randomImage(new Random(5), 64, 64);
+        BufferedImage actual = noisy(new Random(6), expected, 30);
+
+        for (int type : TYPES) {
+            BufferedImage subExpected = convert(expected, type).getSubimage(7, 9, 40, 33);
+            BufferedImage subActual = convert(actual, type).getSubimage(7, 9, 40, 33);
+
+            assertThat(ImageComparator.compare(subExpected, subActual, 1f).getDivergence())
+                    .isEqualTo(naiveDivergence(subExpected, subActual));
+        }
+    }
+
+    @Test
+    public void stopsEarlyWhenThresholdIsExceeded() {
+        BufferedImage expected = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        BufferedImage actual = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 100; ++x)
+            actual.setRGB(x, 0, 0xFFFFFF);
+
+        Comparison comparison = ImageComparator.compare(expected, actual, 0.005f);
+
+        assertThat(comparison.passed()).isFalse();
+        assertThat(comparison.getDivergence()).isGreaterThan(0.005f);
+        assertThat(comparison.getDifferenceImage().getRGB(0, 0) & 0xFFFFFF).isEqualTo(0xFFFFFF);
+        assertThat(comparison.getDifferenceImage().getRGB(0, 1) & 0xFFFFFF).isEqualTo(0);
+    }
+
+    @Test
+    public void passesAtThreshold() {
+        BufferedImage expected = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        BufferedImage actual = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        actual.setRGB(3, 3, 0xFF0000);
+
+        assertThat(ImageComparator.compare(expected, actual, 0.01f).passed()).isTrue();
+        assertThat(ImageComparator.compare(expected, actual, 0.009f).passed()).isFalse();
+    }
+
+    @Test
+    public void parallelMatchesSequential() {
+        BufferedImage expected = randomImage(new Random(7), 800, 600);
+        BufferedImage actual = noisy(new Random(8), expected, 20);
+
+        for (int type : TYPES) {
+            BufferedImage typedActual = convert(actual, type);
+            Comparison sequential = ImageComparator.compare(expected, typedActual, 1f);
+            Comparison parallel = ImageComparator.compare(expected, typedActual, 1f, 1);
+
+            assertThat(parallel.passed()).isTrue();
+            assertThat(parallel.getDivergence()).isEqualTo(sequential.getDivergence());
+        }
+    }
+
+    @Test
+    public void parallelStopsEarlyWhenThresholdIsExceeded() {
+        BufferedImage expected = randomImage(new Random(9), 800, 600);
+        BufferedImage actual = noisy(new Random(10), expected, 100);
+        float divergence = ImageComparator.compare(expected, actual, 1f).getDivergence();
+
+        Comparison parallel = ImageComparator.compare(expected, actual, divergence / 4, 1);
+
+        assertThat(parallel.passed()).isFalse();
+        assertThat(parallel.getDivergence()).isGreaterThan(divergence / 4);
+    }
+
+    static BufferedImage randomImage(Random random, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; ++y)
+            for (int x = 0; x < width; ++x)
+                image.setRGB(x, y, random.nextInt());
+        return image;
+    }
+
+    static BufferedImage noisy(Random random, BufferedImage source, int amplitude) {
+        BufferedImage image = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < source.getHeight(); ++y) {
+            for (int x = 0; x < source.getWidth(); ++x) {
+                int rgb = source.getRGB(x, y);
+                int r = clamp(((rgb >> 16) & 0xFF) + random.nextInt(amplitude * 2 + 1) - amplitude);
+                int g = clamp(((rgb >> 8) & 0xFF) + random.nextInt(amplitude * 2 + 1) - amplitude);
+                int b = clamp((rgb & 0xFF) + random.nextInt(amplitude * 2 + 1) - amplitude);
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        return image;
+    }
+
+    static BufferedImage convert(BufferedImage source, int type) {
+        BufferedImage image = new BufferedImage(source.getWidth(), source.getHeight(), type);
+        image.getGraphics().drawImage(source, 0, 0, null);
+        return image;
+    }
+
+    static float naiveDivergence(BufferedImage img1, BufferedImage img2) {
+        long sum = 0;
+        for (int y = 0; y < img1.getHeight(); ++y) {
+            for (int x = 0; x < img1.getWidth(); ++x) {
+                int rgb1 = img1.getRGB(x, y);
+                int rgb2 = img2.getRGB(x, y);
+                int r = Math.abs(((rgb1 >> 16) & 0xff) - ((rgb2 >> 16) & 0xff));
+                int g = Math.abs(((rgb1 >> 8) & 0xff) - ((rgb2 >> 8) & 0xff));
+                int b = Math.abs((rgb1 & 0xff) - (rgb2 & 0xff));
+                sum += min(r + g + b, 0xFF);
+            }
+        }
+        return sum / (float) (0xFF * img1.getWidth() * img1.getHeight());
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(0xFF, value));
+    }
+}
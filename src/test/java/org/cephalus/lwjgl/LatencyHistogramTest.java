@@ -0,0 +1,69 @@
+package org.cephalus.lwjgl;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void exactStatistics() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3_000_000);
+        histogram.record(1_000_000);
+        histogram.record(2_000_000);
+
+        assertThat(histogram.getCount()).isEqualTo(3);
+        assertThat(histogram.getMin()).isEqualTo(1_000_000);
+        assertThat(histogram.getMax()).isEqualTo(3_000_000);
+        assertThat(histogram.getMean()).isEqualTo(2_000_000);
+        assertThat(histogram.getPercentile(0)).isEqualTo(1_000_000);
+        assertThat(histogram.getPercentile(100)).isEqualTo(3_000_000);
+    }
+
+    @Test
+    public void percentilesWithinBucketResolution() {
+        Random random = new Random(1);
+        long[] values = new long[10_000];
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = (long) Math.abs(random.nextGaussian() * 2_000_000) + 14_000_000;
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : new double[] {50, 95, 99}) {
+            long expected = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            assertThat((double) histogram.getPercentile(percentile)).isCloseTo(expected, within(expected * 0.032));
+        }
+    }
+
+    @Test
+    public void bucketsCoverEveryValue() {
+        for (long value : new long[] {0, 1, 63, 64, 65, 127, 128, 1_000_000, 16_666_667, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.index(value);
+            assertThat(LatencyHistogram.highest(index)).isGreaterThanOrEqualTo(value);
+            if (index > 0)
+                assertThat(LatencyHistogram.highest(index - 1)).isLessThan(value);
+        }
+    }
+
+    @Test
+    public void reset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5);
+        histogram.reset();
+
+        assertThat(histogram.getCount()).isZero();
+        assertThat(histogram.getMin()).isZero();
+        assertThat(histogram.getMax()).isZero();
+        assertThat(histogram.getPercentile(50)).isZero();
+
+        histogram.record(7);
+        assertThat(histogram.getPercentile(50)).isEqualTo(7);
+    }
+}
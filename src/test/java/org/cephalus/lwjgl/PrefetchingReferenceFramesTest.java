@@ -0,0 +1,83 @@
+package org.cephalus.lwjgl;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PrefetchingReferenceFramesTest {
+
+    @Test
+    public void decodesFollowingFramesInBackground() throws IOException, InterruptedException {
+        FakeFrames source = new FakeFrames(10);
+
+        try (PrefetchingReferenceFrames frames = new PrefetchingReferenceFrames(source, 3)) {
+            for (int i = 0; i < 10; ++i)
+                assertThat(frames.read(i).getRGB(0, 0) & 0xFFFFFF).isEqualTo(i);
+        }
+
+        assertThat(source.threads).hasSize(10);
+        assertThat(source.threads.values()).containsOnly("reference-prefetch");
+    }
+
+    @Test
+    public void boundsDecodedBytes() throws IOException, InterruptedException {
+        FakeFrames source = new FakeFrames(10);
+        long frameBytes = 4 * 16 * 16;
+
+        try (PrefetchingReferenceFrames frames = new PrefetchingReferenceFrames(source, 8, frameBytes * 2)) {
+            frames.read(0);
+            Thread.sleep(200);
+
+            assertThat(source.threads.keySet()).containsOnly(0, 1, 2);
+        }
+    }
+
+    @Test
+    public void decodesOnlySampledFrames() throws IOException, InterruptedException {
+        FakeFrames source = new FakeFrames(10);
+        FrameSampling sampling = FrameSampling.every(4, 10);
+
+        try (PrefetchingReferenceFrames frames = new PrefetchingReferenceFrames(source, 3, Long.MAX_VALUE, sampling)) {
+            for (int i : new int[]{0, 4, 8, 9})
+                assertThat(frames.read(i).getRGB(0, 0) & 0xFFFFFF).isEqualTo(i);
+        }
+
+        assertThat(source.threads.keySet()).containsOnly(0, 4, 8, 9);
+    }
+
+    private static class FakeFrames implements ReferenceFrames {
+        private final int size;
+        private final Map<Integer, String> threads = new ConcurrentHashMap<>();
+
+        FakeFrames(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public String name(int index) {
+            return "frame_" + index;
+        }
+
+        @Override
+        public BufferedImage read(int index) {
+            threads.put(index, Thread.currentThread().getName());
+            BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+            image.setRGB(0, 0, index);
+            return image;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
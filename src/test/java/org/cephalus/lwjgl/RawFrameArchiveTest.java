@@ -0,0 +1,151 @@
+package org.cephalus.lwjgl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RawFrameArchiveTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTrip() throws IOException {
+        assertRoundTrip(false);
+    }
+
+    @Test
+    public void roundTripDeflated() throws IOException {
+        assertRoundTrip(true);
+    }
+
+    @Test
+    public void convertsZipRecordings() throws IOException {
+        File target = folder.newFile("triangle.frames");
+
+        int converted = FrameArchiveConverter.convert(getClass().getResourceAsStream("triangle.zip"), target, true);
+
+        BufferedImage expected;
+        try (ZipInputStream zip = new ZipInputStream(getClass().getResourceAsStream("triangle.zip"))) {
+            zip.getNextEntry();
+            expected = ImageIO.read(zip);
+        }
+        try (RawFrameArchive archive = RawFrameArchive.open(target)) {
+            assertThat(converted).isEqualTo(1);
+            assertThat(archive.size()).isEqualTo(1);
+            assertThat(archive.name(0)).isEqualTo("triangle_0001");
+            assertThat(ImageComparator.compare(expected, archive.read(0), 0f).passed()).isTrue();
+        }
+    }
+
+    @Test
+    public void roundTripTileDelta() throws IOException {
+        File file = folder.newFile();
+        BufferedImage[] frames = TileComparatorTest.sequence(new Random(12), 75, 50, 12);
+
+        try (RawFrameArchiveWriter writer = new RawFrameArchiveWriter(file, RawFrameArchive.COMPRESSION_TILE_DELTA, 16, 5)) {
+            for (BufferedImage frame : frames)
+                writer.write(frame);
+        }
+
+        try (RawFrameArchive archive = RawFrameArchive.open(file)) {
+            assertThat(archive.size()).isEqualTo(frames.length);
+            assertThat(archive.tileSize()).isEqualTo(16);
+            assertThat(archive.changedTiles(0)).isNull();
+            assertThat(archive.changedTiles(5)).isNull();
+            long[] changed = archive.changedTiles(1);
+            assertThat(Long.bitCount(changed[0])).isBetween(1, 4);
+            for (int i : new int[]{0, 1, 2, 3, 11, 4, 7, 6, 10, 11})
+                assertThat(ImageComparator.compare(frames[i], archive.read(i), 0f).passed()).as("frame %d", i).isTrue();
+
+            try (RawFrameArchive undecoded = RawFrameArchive.open(file)) {
+                assertThat(archive.changedTiles(7)).isSameAs(archive.changedTiles(7))
+                        .isEqualTo(undecoded.changedTiles(7));
+            }
+        }
+    }
+
+    @Test
+    public void readsVersion2TileDeltas() throws IOException {
+        File file = folder.newFile();
+        int[] keyframe = new int[16];
+        for (int i = 0; i < keyframe.length; ++i)
+            keyframe[i] = 0xFF000000 | i * 0x10101;
+        // the bit set of tile 3 (the bottom right 2x2 pixels) and its pixels, deflated together
+        ByteBuffer delta = ByteBuffer.allocate(8 + 16).order(ByteOrder.LITTLE_ENDIAN);
+        delta.putLong(1L << 3);
+        for (int i = 0; i < 4; ++i)
+            delta.putInt(0xFFFF0000);
+        byte[][] frames = {deflate(pixels(keyframe)), deflate(delta.array())};
+
+        ByteBuffer archive = ByteBuffer.allocate(RawFrameArchive.HEADER_SIZE + frames[0].length + frames[1].length
+                + 2 * RawFrameArchive.INDEX_ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        archive.putInt(RawFrameArchive.MAGIC).putInt(2).putInt(4).putInt(4).putInt(RawFrameArchive.PIXEL_FORMAT_BGRA8)
+                .putInt(RawFrameArchive.COMPRESSION_TILE_DELTA).putInt(2).putInt(2)
+                .putLong(RawFrameArchive.HEADER_SIZE + frames[0].length + frames[1].length);
+        archive.put(frames[0]).put(frames[1]);
+        archive.putLong(RawFrameArchive.HEADER_SIZE).putInt(frames[0].length).putInt(RawFrameArchive.FLAG_KEYFRAME).putLong(0);
+        archive.putLong(RawFrameArchive.HEADER_SIZE + frames[0].length).putInt(frames[1].length).putInt(0).putLong(0);
+        Files.write(file.toPath(), archive.array());
+
+        try (RawFrameArchive reader = RawFrameArchive.open(file)) {
+            assertThat(reader.changedTiles(1)).containsExactly(1L << 3);
+            BufferedImage frame = reader.read(1);
+            assertThat(frame.getRGB(1, 1)).isEqualTo(keyframe[5]);
+            assertThat(frame.getRGB(3, 3)).isEqualTo(0xFFFF0000);
+        }
+    }
+
+    private static byte[] pixels(int[] pixels) {
+        ByteBuffer bytes = ByteBuffer.allocate(pixels.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.asIntBuffer().put(pixels);
+        return bytes.array();
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buffer = new byte[data.length + 64];
+        int length = deflater.deflate(buffer);
+        deflater.end();
+        return Arrays.copyOf(buffer, length);
+    }
+
+    private void assertRoundTrip(boolean compress) throws IOException {
+        File file = folder.newFile();
+        Random random = new Random(11);
+        BufferedImage[] frames = new BufferedImage[70];
+        for (int i = 0; i < frames.length; ++i)
+            frames[i] = ImageComparatorTest.randomImage(random, 33, 21);
+
+        try (RawFrameArchiveWriter writer = new RawFrameArchiveWriter(file, compress)) {
+            for (BufferedImage frame : frames)
+                writer.write(ImageComparatorTest.convert(frame, BufferedImage.TYPE_3BYTE_BGR));
+        }
+
+        try (RawFrameArchive archive = RawFrameArchive.open(file)) {
+            assertThat(archive.size()).isEqualTo(frames.length);
+            assertThat(archive.getWidth()).isEqualTo(33);
+            assertThat(archive.getHeight()).isEqualTo(21);
+            for (int i = frames.length - 1; i >= 0; --i) {
+                assertThat(ImageComparator.compare(frames[i], archive.read(i), 0f).passed()).isTrue();
+                assertThat(archive.hash(i)).hasValue(FrameHash.of(frames[i]));
+            }
+        }
+    }
+}
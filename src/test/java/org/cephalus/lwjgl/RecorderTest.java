@@ -6,7 +6,6 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.lwjgl.LWJGLException;
-import org.lwjgl.opengl.Display;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
@@ -42,7 +41,7 @@ public class RecorderTest {
     @After
     public void close() throws IOException {
         recorder.close();
-        File zipFile = new File("target/recorded-frames/record.zip");
+        File zipFile = recorder.getFile();
         try {
             ZipInputStream zip = new ZipInputStream(new FileInputStream(zipFile));
             int i;
@@ -65,6 +64,8 @@ public class RecorderTest {
                 assertEquals(expectedG, actualG / 255f, delta);
                 assertEquals(expectedB, actualB / 255f, delta);
             }
+            ZipEntry manifest = zip.getNextEntry();
+            assertEquals(ZipReferenceFrames.MANIFEST, manifest.getName());
             assertNull("Extra frame " + i, zip.getNextEntry());
             zip.close();
         } finally {
@@ -84,7 +85,7 @@ public class RecorderTest {
 
         recorder.saveSnapshot();
 
-        Display.swapBuffers();
+        ContextBackends.current().swapBuffers();
         ++frame;
     }
 }
@@ -0,0 +1,71 @@
+package org.cephalus.lwjgl;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReferenceFrameCacheTest {
+
+    private static final long FRAME_BYTES = 4 * 10 * 10;
+
+    private final Random random = new Random(3);
+
+    @Test
+    public void countsHitsAndMisses() {
+        ReferenceFrameCache cache = new ReferenceFrameCache(FRAME_BYTES * 4, false);
+        BufferedImage frame = ImageComparatorTest.randomImage(random, 10, 10);
+
+        assertThat(cache.get(getClass(), "triangle", 0)).isNull();
+        cache.put(getClass(), "triangle", 0, frame);
+
+        assertThat(cache.get(getClass(), "triangle", 0)).isSameAs(frame);
+        assertThat(cache.get(getClass(), "triangle", 1)).isNull();
+        assertThat(cache.get(String.class, "triangle", 0)).isNull();
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(3);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedFrames() {
+        ReferenceFrameCache cache = new ReferenceFrameCache(FRAME_BYTES * 2, false);
+        cache.put(getClass(), "triangle", 0, ImageComparatorTest.randomImage(random, 10, 10));
+        cache.put(getClass(), "triangle", 1, ImageComparatorTest.randomImage(random, 10, 10));
+        cache.get(getClass(), "triangle", 0);
+
+        cache.put(getClass(), "triangle", 2, ImageComparatorTest.randomImage(random, 10, 10));
+
+        assertThat(cache.getBytes()).isEqualTo(FRAME_BYTES * 2);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(cache.get(getClass(), "triangle", 0)).isNotNull();
+        assertThat(cache.get(getClass(), "triangle", 1)).isNull();
+        assertThat(cache.get(getClass(), "triangle", 2)).isNotNull();
+    }
+
+    @Test
+    public void storesPixelsOffHeap() {
+        ReferenceFrameCache cache = new ReferenceFrameCache(FRAME_BYTES * 2, true);
+        BufferedImage frame = ImageComparatorTest.convert(ImageComparatorTest.randomImage(random, 10, 10), BufferedImage.TYPE_3BYTE_BGR);
+
+        cache.put(getClass(), "triangle", 0, frame);
+
+        BufferedImage cached = cache.get(getClass(), "triangle", 0);
+        assertThat(cached).isNotSameAs(frame);
+        assertThat(ImageComparator.compare(frame, cached, 0f).passed()).isTrue();
+        assertThat(cached.getRGB(3, 7)).isEqualTo(frame.getRGB(3, 7));
+    }
+
+    @Test
+    public void offHeapHitsDoNotAllocateImages() {
+        ReferenceFrameCache cache = new ReferenceFrameCache(FRAME_BYTES * 2, true);
+        BufferedImage frame = ImageComparatorTest.randomImage(random, 10, 10);
+        cache.put(getClass(), "triangle", 0, frame);
+
+        BufferedImage cached = cache.get(getClass(), "triangle", 0);
+
+        assertThat(cache.get(getClass(), "triangle", 0)).isSameAs(cached);
+        assertThat(FrameHash.of(cached)).isEqualTo(FrameHash.of(frame));
+    }
+}
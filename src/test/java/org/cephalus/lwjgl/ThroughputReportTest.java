@@ -0,0 +1,61 @@
+package org.cephalus.lwjgl;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.Description;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.cephalus.lwjgl.FrameTimings.Phase.FRAME;
+
+public class ThroughputReportTest {
+
+    private static final Description DESCRIPTION = Description.createTestDescription(ThroughputReportTest.class, "render");
+
+    @After
+    public void clearProperty() {
+        System.clearProperty(ThroughputReport.PROPERTY);
+    }
+
+    @Test
+    public void framesPerSecond() {
+        ThroughputReport report = new ThroughputReport(DESCRIPTION, 500, 2_000_000_000L, null);
+
+        assertThat(report.getSeconds()).isEqualTo(2.0);
+        assertThat(report.getFps()).isCloseTo(250.0, within(1e-9));
+        assertThat(report.getMillisPerFrame()).isCloseTo(4.0, within(1e-9));
+        assertThat(report.toString()).endsWith("500 frames in 2.000 s, 250.0 fps, 4.000 ms/frame");
+    }
+
+    @Test
+    public void writesJson() throws IOException {
+        FrameTimings timings = new FrameTimings();
+        timings.get(FRAME).record(3_000_000);
+        FrameTimings.Statistics frames = timings.publish(DESCRIPTION).get(FRAME);
+
+        File file = new ThroughputReport(DESCRIPTION, 1, 3_000_000, frames).write();
+        String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+
+        assertThat(file.getName()).isEqualTo(ThroughputReportTest.class.getName() + ".render.json");
+        assertThat(json).startsWith("{\"class\": \"" + ThroughputReportTest.class.getName() + "\", \"method\": \"render\"")
+                .contains("\"frames\": 1", "\"fps\": 333.3333", "\"msPerFrame\": 3.0000", "\"frameMs\": {\"min\": 3.0000");
+        file.delete();
+    }
+
+    @Test
+    public void secondsFromProperty() {
+        assertThat(ThroughputReport.secondsFromProperty()).isNegative();
+        System.setProperty(ThroughputReport.PROPERTY, "true");
+        assertThat(ThroughputReport.secondsFromProperty()).isZero();
+        System.setProperty(ThroughputReport.PROPERTY, "2.5");
+        assertThat(ThroughputReport.secondsFromProperty()).isEqualTo(2.5);
+        System.setProperty(ThroughputReport.PROPERTY, "fast");
+        assertThatThrownBy(ThroughputReport::secondsFromProperty).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,76 @@
+package org.cephalus.lwjgl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ThumbnailReferenceFramesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void averagesBlocks() {
+        BufferedImage image = new BufferedImage(5, 3, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, 0xFF0000);
+        image.setRGB(1, 1, 0x0000FF);
+        image.setRGB(4, 2, 0x00FF00);
+
+        BufferedImage thumbnail = ThumbnailReferenceFrames.thumbnail(image, 2);
+
+        assertThat(thumbnail.getWidth()).isEqualTo(3);
+        assertThat(thumbnail.getHeight()).isEqualTo(2);
+        assertThat(thumbnail.getRGB(0, 0) & 0xFFFFFF).isEqualTo(0x400040);
+        assertThat(thumbnail.getRGB(2, 0) & 0xFFFFFF).isEqualTo(0);
+        assertThat(thumbnail.getRGB(2, 1) & 0xFFFFFF).isEqualTo(0x00FF00);
+    }
+
+    @Test
+    public void readsHashesAndThumbnails() throws IOException {
+        Random random = new Random(15);
+        BufferedImage frame = ImageComparatorTest.randomImage(random, 40, 24);
+        BufferedImage thumbnail = ThumbnailReferenceFrames.thumbnail(frame, 4);
+        File file = folder.newFile("sequence.golden.zip");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new ZipEntry("sequence_0001.png"));
+            ImageIO.write(thumbnail, "PNG", out);
+            out.putNextEntry(new ZipEntry(ZipReferenceFrames.MANIFEST));
+            out.write(("sequence_0001=" + FrameHash.toString(FrameHash.of(frame)) + "\n"
+                    + ThumbnailReferenceFrames.SCALE_PROPERTY + "=4\n").getBytes("ISO-8859-1"));
+        }
+
+        try (ThumbnailReferenceFrames reference = new ThumbnailReferenceFrames(file)) {
+            assertThat(reference.size()).isEqualTo(1);
+            assertThat(reference.getScale()).isEqualTo(4);
+            assertThat(reference.hash(0)).hasValue(FrameHash.of(frame));
+
+            BufferedImage near = ImageComparatorTest.noisy(random, frame, 4);
+            Comparison comparison = ImageComparator.compare(reference.read(0), ThumbnailReferenceFrames.thumbnail(near, 4), 0.01f);
+            assertThat(comparison.passed()).isTrue();
+            assertThat(comparison.getDivergence()).isLessThanOrEqualTo(ImageComparator.compare(frame, near, 1f).getDivergence());
+        }
+    }
+
+    @Test
+    public void rejectsPlainZips() throws IOException {
+        File file = folder.newFile("plain.zip");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new ZipEntry("plain_0001.png"));
+            ImageIO.write(new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB), "PNG", out);
+        }
+
+        assertThatThrownBy(() -> new ThumbnailReferenceFrames(file)).isInstanceOf(IOException.class);
+    }
+}
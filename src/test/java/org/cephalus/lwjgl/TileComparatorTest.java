@@ -0,0 +1,105 @@
+package org.cephalus.lwjgl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TileComparatorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void matchesFullComparisonOnDeltaSequences() throws IOException {
+        Random random = new Random(21);
+        BufferedImage[] reference = sequence(random, 90, 70, 20);
+        BufferedImage[] actual = new BufferedImage[reference.length];
+        for (int i = 0; i < actual.length; ++i)
+            actual[i] = i % 3 == 0 ? ImageComparatorTest.noisy(random, reference[i], 3) : reference[i];
+
+        File file = folder.newFile();
+        try (RawFrameArchiveWriter writer = new RawFrameArchiveWriter(file, RawFrameArchive.COMPRESSION_TILE_DELTA, 16, 8)) {
+            for (BufferedImage frame : reference)
+                writer.write(frame);
+        }
+
+        TileComparator comparator = new TileComparator(16);
+        try (RawFrameArchive archive = RawFrameArchive.open(file)) {
+            for (int i = 0; i < reference.length; ++i) {
+                Comparison expected = ImageComparator.compare(reference[i], actual[i], 1f);
+                Comparison tiled = comparator.compare(archive.read(i), archive.changedTiles(i), actual[i], 1f);
+
+                assertThat(tiled.getDivergence()).as("frame %d", i).isEqualTo(expected.getDivergence());
+                assertThat(tiled.passed()).isTrue();
+            }
+        }
+    }
+
+    @Test
+    public void failsLikeFullComparison() {
+        Random random = new Random(22);
+        BufferedImage expected = ImageComparatorTest.randomImage(random, 40, 40);
+        BufferedImage actual = ImageComparatorTest.noisy(random, expected, 120);
+        float divergence = ImageComparator.compare(expected, actual, 1f).getDivergence();
+
+        Comparison comparison = new TileComparator(8).compare(expected, null, actual, divergence / 2);
+
+        assertThat(comparison.passed()).isFalse();
+    }
+
+    @Test
+    public void detectsChangesOfTheActualFrameOnly() {
+        Random random = new Random(23);
+        BufferedImage expected = ImageComparatorTest.randomImage(random, 50, 30);
+        BufferedImage[] actual = sequence(random, 50, 30, 6);
+        long[] unchanged = new long[1];
+
+        TileComparator comparator = new TileComparator(8);
+        for (int i = 0; i < actual.length; ++i) {
+            BufferedImage frame = i % 2 == 0 ? actual[i] : ImageComparatorTest.convert(actual[i], BufferedImage.TYPE_3BYTE_BGR);
+            Comparison tiled = comparator.compare(expected, i == 0 ? null : unchanged, frame, 1f);
+
+            assertThat(tiled.getDivergence()).as("frame %d", i)
+                    .isEqualTo(ImageComparator.compare(expected, actual[i], 1f).getDivergence());
+        }
+    }
+
+    @Test
+    public void comparesInFullWhenMostTilesChanged() {
+        Random random = new Random(24);
+        BufferedImage[] reference = sequence(random, 32, 32, 3);
+        long[] all = {0xFL};
+
+        TileComparator comparator = new TileComparator(16);
+        for (BufferedImage frame : reference) {
+            BufferedImage actual = ImageComparatorTest.noisy(random, frame, 5);
+            assertThat(comparator.compare(frame, all, actual, 1f).getDivergence())
+                    .isEqualTo(ImageComparator.compare(frame, actual, 1f).getDivergence());
+        }
+    }
+
+    /**
+     * Frames where a small random rectangle changes from one frame to the next.
+     */
+    static BufferedImage[] sequence(Random random, int width, int height, int length) {
+        BufferedImage[] frames = new BufferedImage[length];
+        frames[0] = ImageComparatorTest.randomImage(random, width, height);
+        for (int i = 1; i < length; ++i) {
+            frames[i] = ImageComparatorTest.convert(frames[i - 1], BufferedImage.TYPE_INT_RGB);
+            int x = random.nextInt(width - 8);
+            int y = random.nextInt(height - 8);
+            int rgb = random.nextInt();
+            for (int dy = 0; dy < 8; ++dy)
+                for (int dx = 0; dx < 8; ++dx)
+                    frames[i].setRGB(x + dx, y + dy, rgb);
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,96 @@
+package org.cephalus.lwjgl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ZipReferenceFramesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Random random = new Random(5);
+    private final BufferedImage[] frames = {
+            ImageComparatorTest.randomImage(random, 9, 7)
+            , ImageComparatorTest.randomImage(random, 9, 7)
+            , ImageComparatorTest.randomImage(random, 9, 7)
+    };
+
+    @Test
+    public void readsFramesInAnyOrder() throws IOException {
+        File file = folder.newFile("sequence.zip");
+        writeZip(file);
+
+        try (ZipReferenceFrames reference = new ZipReferenceFrames(file)) {
+            assertThat(reference.size()).isEqualTo(3);
+            assertThat(reference.name(1)).isEqualTo("sequence_0002");
+            assertThat(reference.indexOf("sequence_0003")).isEqualTo(2);
+            assertThat(reference.indexOf("missing")).isEqualTo(-1);
+            for (int i : new int[]{2, 0, 1, 2})
+                assertThat(ImageComparator.compare(frames[i], reference.read(i), 0f).passed()).isTrue();
+        }
+    }
+
+    @Test
+    public void readsManifestHashes() throws IOException {
+        File file = folder.newFile("sequence.zip");
+        writeZip(file);
+        try (ZipReferenceFrames reference = new ZipReferenceFrames(file)) {
+            assertThat(reference.hash(0)).isEmpty();
+        }
+
+        File hashed = folder.newFile("hashed.zip");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(hashed))) {
+            out.putNextEntry(new ZipEntry("hashed_0001.png"));
+            ImageIO.write(frames[0], "PNG", out);
+            out.putNextEntry(new ZipEntry(ZipReferenceFrames.MANIFEST));
+            out.write(("hashed_0001=" + FrameHash.toString(FrameHash.of(frames[0])) + "\n").getBytes("ISO-8859-1"));
+        }
+        try (ZipReferenceFrames reference = new ZipReferenceFrames(hashed)) {
+            assertThat(reference.size()).isEqualTo(1);
+            assertThat(reference.hash(0)).hasValue(FrameHash.of(reference.read(0)));
+        }
+    }
+
+    @Test
+    public void readsResourcesInsideJars() throws IOException {
+        File zip = folder.newFile("sequence.zip");
+        writeZip(zip);
+        File jar = folder.newFile("frames.jar");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+            out.putNextEntry(new ZipEntry("frames/sequence.zip"));
+            out.write(Files.readAllBytes(zip.toPath()));
+        }
+
+        URL resource = new URL("jar:" + jar.toURI() + "!/frames/sequence.zip");
+        try (ZipReferenceFrames reference = ZipReferenceFrames.open(resource)) {
+            assertThat(reference.size()).isEqualTo(3);
+            assertThat(ImageComparator.compare(frames[1], reference.read(1), 0f).passed()).isTrue();
+        }
+    }
+
+    private void writeZip(File file) throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < frames.length; ++i) {
+                ByteArrayOutputStream png = new ByteArrayOutputStream();
+                ImageIO.write(frames[i], "PNG", png);
+                out.putNextEntry(new ZipEntry(String.format("sequence_%04d.png", i + 1)));
+                out.write(png.toByteArray());
+            }
+        }
+    }
+}
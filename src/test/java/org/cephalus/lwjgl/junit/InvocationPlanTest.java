@@ -0,0 +1,128 @@
+package org.cephalus.lwjgl.junit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.TestClass;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class InvocationPlanTest {
+
+    @Test
+    public void invokesLifecycleInJUnitOrder() throws Throwable {
+        InvocationPlan plan = new InvocationPlan(new TestClass(Lifecycle.class));
+        Lifecycle target = new Lifecycle();
+
+        for (InvocationPlan.Invoker before : plan.befores())
+            before.invoke(target);
+        plan.test(method(Lifecycle.class, "test")).invoke(target);
+        for (InvocationPlan.Invoker after : plan.afters())
+            after.invoke(target);
+
+        assertThat(target.calls).containsExactly("superBefore", "before", "test", "after", "superAfter");
+    }
+
+    @Test
+    public void propagatesExceptionsUnwrapped() {
+        InvocationPlan plan = new InvocationPlan(new TestClass(Failing.class));
+
+        assertThatThrownBy(() -> plan.test(method(Failing.class, "checked")).invoke(new Failing()))
+                .isExactlyInstanceOf(IOException.class)
+                .hasMessage("checked");
+        assertThatThrownBy(() -> plan.test(method(Failing.class, "assertion")).invoke(new Failing()))
+                .isExactlyInstanceOf(AssertionError.class);
+    }
+
+    @Test
+    public void failsInvalidMethodsWhenInvoked() throws Throwable {
+        InvocationPlan plan = new InvocationPlan(new TestClass(Invalid.class));
+        Invalid target = new Invalid();
+
+        assertThatThrownBy(() -> plan.test(method(Invalid.class, "parameter", int.class)).invoke(target))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> plan.test(method(Invalid.class, "hidden")).invoke(target))
+                .isExactlyInstanceOf(IllegalAccessException.class);
+        plan.test(method(Invalid.class, "valid")).invoke(target);
+
+        assertThat(target.calls).containsExactly("valid");
+    }
+
+    private static FrameworkMethod method(Class<?> type, String name, Class<?>... parameters) {
+        try {
+            return new FrameworkMethod(type.getDeclaredMethod(name, parameters));
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalArgumentException(ex);
+        }
+    }
+
+    public static class Base {
+        final List<String> calls = new ArrayList<>();
+
+        @Before
+        public void superBefore() {
+            calls.add("superBefore");
+        }
+
+        @After
+        public void superAfter() {
+            calls.add("superAfter");
+        }
+    }
+
+    public static class Lifecycle extends Base {
+
+        @Before
+        public void before() {
+            calls.add("before");
+        }
+
+        @After
+        public void after() {
+            calls.add("after");
+        }
+
+        @Test
+        public void test() {
+            calls.add("test");
+        }
+    }
+
+    public static class Failing {
+
+        @Test
+        public void checked() throws IOException {
+            throw new IOException("checked");
+        }
+
+        @Test
+        public void assertion() {
+            throw new AssertionError();
+        }
+    }
+
+    public static class Invalid {
+        final List<String> calls = new ArrayList<>();
+
+        @Test
+        public void parameter(int value) {
+            calls.add("parameter");
+        }
+
+        @Test
+        void hidden() {
+            calls.add("hidden");
+        }
+
+        @Test
+        public void valid() {
+            calls.add("valid");
+        }
+    }
+}
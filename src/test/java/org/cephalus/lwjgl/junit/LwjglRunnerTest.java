@@ -1,14 +1,30 @@
 package org.cephalus.lwjgl.junit;
 
+import org.cephalus.lwjgl.Compare;
+import org.cephalus.lwjgl.CompareTest;
+import org.cephalus.lwjgl.ContextBackend;
+import org.cephalus.lwjgl.ContextBackends;
+import org.cephalus.lwjgl.FrameBudget;
+import org.cephalus.lwjgl.FrameTimings;
+import org.cephalus.lwjgl.GpuTimed;
 import org.cephalus.lwjgl.Iterations;
+import org.cephalus.lwjgl.OutputDirectory;
+import org.cephalus.lwjgl.Profile;
+import org.cephalus.lwjgl.Throughput;
+import org.cephalus.lwjgl.ThroughputReport;
+import org.cephalus.lwjgl.Warmup;
+import org.cephalus.lwjgl.Window;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
 import org.junit.Ignore;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.internal.requests.ClassRequest;
 import org.junit.internal.requests.FilterRequest;
+import org.junit.rules.TestRule;
 import org.junit.runner.Description;
 import org.junit.runner.JUnitCore;
 import org.junit.runner.Request;
@@ -16,13 +32,24 @@ import org.junit.runner.Result;
 import org.junit.runner.RunWith;
 import org.junit.runner.manipulation.Filter;
 import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+import org.junit.runners.MethodSorters;
+import org.junit.runners.model.Statement;
+import org.lwjgl.LWJGLException;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.cephalus.lwjgl.FrameTimings.Phase.COMPARE;
+import static org.cephalus.lwjgl.FrameTimings.Phase.GPU;
+import static org.cephalus.lwjgl.FrameTimings.Phase.INVOKE;
+import static org.lwjgl.opengl.GL11.*;
 
 public class LwjglRunnerTest {
 
@@ -87,6 +114,167 @@ public class LwjglRunnerTest {
                 .hasAtLeastOneElementOfType(AssertionError.class);
     }
 
+    @Test
+    public void reusesContext() {
+        String previous = System.setProperty(ContextPool.REUSE_PROPERTY, "true");
+        TestRun run;
+        try {
+            run = runTestClass(ReusedContextTest.class);
+        } finally {
+            if (previous == null)
+                System.clearProperty(ContextPool.REUSE_PROPERTY);
+            else
+                System.setProperty(ContextPool.REUSE_PROPERTY, previous);
+        }
+
+        assertThat(run.result.wasSuccessful()).isTrue();
+        assertThat(run.methods)
+                .containsExactly("create 640x480", "reuse 320x240");
+        assertThat(ContextBackends.current().isCreated()).isFalse();
+    }
+
+    @Test
+    public void publishesTimings() {
+        TestRun run = runTestClass(TimedTest.class);
+
+        assertThat(run.result.wasSuccessful()).isTrue();
+        assertThat(run.methods).containsExactly("invoked 5");
+        FrameTimings.Report report = run.timings.get("test");
+        assertThat(report.get(INVOKE).getMin()).isGreaterThanOrEqualTo(1_000_000L);
+        assertThat(report.get(INVOKE).getP50()).isBetween(report.get(INVOKE).getMin(), report.get(INVOKE).getMax());
+        assertThat(report.get(COMPARE)).isNull();
+        assertThat(report.get(GPU)).isNull();
+        assertThat(FrameTimings.of(report.getDescription())).isNull();
+    }
+
+    @Test
+    public void warmsUp() {
+        TestRun run = runTestClass(WarmupTest.class);
+
+        assertThat(run.result.wasSuccessful()).isTrue();
+        assertThat(run.methods).hasSize(5);
+        FrameTimings.Report report = run.timings.get("test");
+        assertThat(report.get(INVOKE).getCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void failsOverBudget() {
+        TestRun run = runTestClass(OverBudgetTest.class);
+
+        assertThat(run.result.getFailures())
+                .extracting(f -> f.getDescription().getMethodName())
+                .containsExactly("slow");
+        assertThat(run.result.getFailures().get(0).getMessage())
+                .contains("Frame budget exceeded over 5 frames", "mean");
+    }
+
+    @Test
+    public void rendersForDuration() {
+        TestRun run = runTestClass(ThroughputTest.class);
+
+        assertThat(run.result.wasSuccessful()).isTrue();
+        assertThat(run.methods.size()).isGreaterThan(1);
+        assertThat(new File(ThroughputReport.DIRECTORY, ThroughputTest.class.getName() + ".render.json")).exists();
+    }
+
+    @Test
+    public void keepsComparingUnderThroughputProperty() {
+        String previous = System.setProperty(ThroughputReport.PROPERTY, "1");
+        try {
+            TestRun run = runTestClass(CompareTest.class, Filter.matchMethodDescription(
+                    Description.createTestDescription(CompareTest.class, "differentTriangle")));
+
+            assertThat(run.result.getRunCount()).isEqualTo(1);
+            assertThat(run.result.wasSuccessful()).isTrue();
+        } finally {
+            restoreProperty(ThroughputReport.PROPERTY, previous);
+        }
+    }
+
+    @Test
+    public void restoresVSyncAfterThroughput() {
+        ContextBackend backend = ContextBackends.current();
+        boolean previous = backend.isVSyncEnabled();
+        backend.setVSyncEnabled(true);
+        try {
+            runTestClass(ThroughputTest.class);
+
+            assertThat(backend.isVSyncEnabled()).isTrue();
+        } finally {
+            backend.setVSyncEnabled(previous);
+        }
+    }
+
+    @Test
+    public void timesGpu() {
+        TestRun run = runTestClass(GpuTimedTest.class);
+
+        assertThat(run.result.wasSuccessful()).isTrue();
+        FrameTimings.Report report = run.timings.get("test");
+        assertThat(report.get(GPU).getCount()).isEqualTo(10);
+        assertThat(report.get(GPU).getMax()).isPositive();
+    }
+
+    @Test
+    public void closesReferenceWhenContextFails() throws InterruptedException {
+        String previous = System.setProperty(ContextBackends.BACKEND_PROPERTY, FailingBackend.class.getName());
+        TestRun[] run = new TestRun[1];
+        // a new thread gets a backend of its own
+        Thread thread = new Thread(() -> run[0] = runTestClass(FailingContextTest.class));
+        try {
+            thread.start();
+            thread.join();
+        } finally {
+            if (previous == null)
+                System.clearProperty(ContextBackends.BACKEND_PROPERTY);
+            else
+                System.setProperty(ContextBackends.BACKEND_PROPERTY, previous);
+        }
+
+        assertThat(run[0].result.getRunCount()).isEqualTo(1);
+        assertThat(run[0].result.getFailures())
+                .extracting(Failure::getException)
+                .hasSize(1)
+                .hasOnlyElementsOfType(LWJGLException.class);
+        for (int i = 0; i < 100 && prefetchRunning(); ++i)
+            Thread.sleep(10);
+        assertThat(prefetchRunning()).isFalse();
+        assertThat(run[0].methods).isEmpty();
+    }
+
+    @Test
+    public void writesParallelMethodsToTheirOwnDirectories() throws InterruptedException {
+        String previousBackend = System.setProperty(ContextBackends.BACKEND_PROPERTY, NoContextBackend.class.getName());
+        String previousThreads = System.setProperty(RenderThreadScheduler.THREADS_PROPERTY, "2");
+        TestRun[] run = new TestRun[1];
+        // a new thread gets a backend of its own
+        Thread thread = new Thread(() -> run[0] = runTestClass(ParallelOutputTest.class));
+        try {
+            thread.start();
+            thread.join();
+        } finally {
+            RenderThreadScheduler.shutdown();
+            restoreProperty(RenderThreadScheduler.THREADS_PROPERTY, previousThreads);
+            restoreProperty(ContextBackends.BACKEND_PROPERTY, previousBackend);
+        }
+
+        assertThat(run[0].result.wasSuccessful()).isTrue();
+        File classDirectory = new File(OutputDirectory.DEFAULT, ParallelOutputTest.class.getName());
+        assertThat(run[0].methods).containsExactlyInAnyOrder(
+                new File(classDirectory, "test1").getPath(), new File(classDirectory, "test2").getPath());
+    }
+
+    private static void restoreProperty(String key, String previous) {
+        if (previous == null)
+            System.clearProperty(key);
+        else
+            System.setProperty(key, previous);
+    }
+
+    private static boolean prefetchRunning() {
+        return Thread.getAllStackTraces().keySet().stream().anyMatch(t -> t.getName().equals("reference-prefetch"));
+    }
+
     private static TestRun runTestClass(Class<?> testClass) {
         return runTestClass(testClass, null);
     }
@@ -95,6 +283,15 @@ public class LwjglRunnerTest {
         methodCalls.put(testClass, new ArrayList<>());
 
         JUnitCore junit = new JUnitCore();
+        Map<String, FrameTimings.Report> timings = new HashMap<>();
+        junit.addListener(new RunListener() {
+            @Override
+            public void testFinished(Description description) {
+                FrameTimings.Report report = FrameTimings.of(description);
+                if(report != null)
+                    timings.put(description.getMethodName(), report);
+            }
+        });
 
         Request request = new ClassRequest(testClass);
         if(filter != null)
@@ -102,16 +299,18 @@ public class LwjglRunnerTest {
 
         Result result = junit.run(request);
 
-        return new TestRun(result, methodCalls.remove(testClass));
+        return new TestRun(result, methodCalls.remove(testClass), timings);
     }
 
     public static class TestRun {
         public final Result result;
         public final List<String> methods;
+        public final Map<String, FrameTimings.Report> timings;
 
-        public TestRun(Result result, List<String> methods) {
+        public TestRun(Result result, List<String> methods, Map<String, FrameTimings.Report> timings) {
             this.result = result;
             this.methods = methods;
+            this.timings = timings;
         }
     }
 
@@ -154,6 +353,210 @@ public class LwjglRunnerTest {
         }
     }
 
+    @RunWith(LwjglRunner.class)
+    @Iterations(1)
+    @FixMethodOrder(MethodSorters.NAME_ASCENDING)
+    public static class ReusedContextTest {
+
+        private static int texture;
+
+        private static void add(String methodName) {
+            methodCalls.get(ReusedContextTest.class).add(methodName);
+        }
+
+        @Test
+        public void test1() {
+            texture = glGenTextures();
+            glBindTexture(GL_TEXTURE_2D, texture);
+            glEnable(GL_BLEND);
+            add("create " + ContextBackends.current().getWidth() + "x" + ContextBackends.current().getHeight());
+        }
+
+        @Test
+        @Window(width = 320, height = 240)
+        public void test2() {
+            assertThat(glIsEnabled(GL_BLEND)).isFalse();
+            assertThat(glGetInteger(GL_TEXTURE_BINDING_2D)).isZero();
+            add((glIsTexture(texture) ? "reuse " : "create ") + ContextBackends.current().getWidth() + "x" + ContextBackends.current().getHeight());
+            glDeleteTextures(texture);
+        }
+    }
+
+    @RunWith(LwjglRunner.class)
+    @Iterations(5)
+    public static class TimedTest {
+
+        @Rule
+        public TestRule timings = (base, description) -> new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                base.evaluate();
+                methodCalls.get(TimedTest.class).add("invoked " + FrameTimings.of(description).get(INVOKE).getCount());
+            }
+        };
+
+        @Test
+        public void test() throws InterruptedException {
+            Thread.sleep(1);
+        }
+    }
+
+    @RunWith(LwjglRunner.class)
+    @Iterations(2)
+    @Warmup(3)
+    public static class WarmupTest {
+
+        @Test
+        public void test() {
+            methodCalls.get(WarmupTest.class).add("test");
+        }
+    }
+
+    @RunWith(LwjglRunner.class)
+    @Iterations(5)
+    @FrameBudget(mean = 100)
+    public static class OverBudgetTest {
+
+        @Test
+        public void fast() {
+        }
+
+        @Test
+        @FrameBudget(mean = 1)
+        public void slow() throws InterruptedException {
+            Thread.sleep(5);
+        }
+    }
+
+    @RunWith(LwjglRunner.class)
+    @Iterations(1)
+    @Throughput(seconds = 0.2)
+    public static class ThroughputTest {
+
+        @Test
+        public void render() {
+            glClear(GL_COLOR_BUFFER_BIT);
+            methodCalls.get(ThroughputTest.class).add("render");
+        }
+    }
+
+    @RunWith(LwjglRunner.class)
+    @Iterations(10)
+    @Profile(330)
+    @GpuTimed(queries = 1)
+    public static class GpuTimedTest {
+
+        @Test
+        public void test() {
+            glClearColor(0.2f, 0.4f, 0.6f, 1f);
+            glClear(GL_COLOR_BUFFER_BIT);
+        }
+    }
+
+    @RunWith(LwjglRunner.class)
+    @Iterations(1)
+    public static class FailingContextTest {
+
+        @Test(expected = LWJGLException.class)
+        @Compare(reference = "/org/cephalus/lwjgl/triangle", prefetch = 2)
+        public void test() {
+            methodCalls.get(FailingContextTest.class).add("test");
+        }
+    }
+
+    @RunWith(LwjglRunner.class)
+    @Iterations(1)
+    public static class ParallelOutputTest {
+
+        private static final CyclicBarrier bothRunning = new CyclicBarrier(2);
+
+        private static void add() throws Exception {
+            bothRunning.await(5, TimeUnit.SECONDS);
+            List<String> calls = methodCalls.get(ParallelOutputTest.class);
+            synchronized (calls) {
+                calls.add(OutputDirectory.get().getPath());
+            }
+        }
+
+        @Test
+        public void test1() throws Exception {
+            add();
+        }
+
+        @Test
+        public void test2() throws Exception {
+            add();
+        }
+    }
+
+    /**
+     * Creates no context, for tests that do not render.
+     */
+    public static class NoContextBackend extends FailingBackend {
+
+        @Override
+        public void create(int profile, int width, int height, String title) {
+        }
+    }
+
+    public static class FailingBackend implements ContextBackend {
+
+        @Override
+        public void create(int profile, int width, int height, String title) throws LWJGLException {
+            throw new LWJGLException("No context");
+        }
+
+        @Override
+        public boolean isCreated() {
+            return false;
+        }
+
+        @Override
+        public int getProfile() {
+            return -1;
+        }
+
+        @Override
+        public int getWidth() {
+            return 0;
+        }
+
+        @Override
+        public int getHeight() {
+            return 0;
+        }
+
+        @Override
+        public void resize(int width, int height) {
+        }
+
+        @Override
+        public void setTitle(String title) {
+        }
+
+        @Override
+        public int getFramebuffer() {
+            return 0;
+        }
+
+        @Override
+        public int getColorBuffer() {
+            return 0;
+        }
+
+        @Override
+        public void swapBuffers() {
+        }
+
+        @Override
+        public void sync(int fps) {
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+
     @RunWith(LwjglRunner.class)
     @Iterations(1)
     @Ignore
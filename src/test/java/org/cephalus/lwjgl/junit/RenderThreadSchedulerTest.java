@@ -0,0 +1,54 @@
+package org.cephalus.lwjgl.junit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RenderThreadSchedulerTest {
+
+    @After
+    public void shutdown() {
+        RenderThreadScheduler.shutdown();
+        System.clearProperty(RenderThreadScheduler.THREADS_PROPERTY);
+    }
+
+    @Test
+    public void runsChildrenConcurrentlyAndWaitsForThem() {
+        System.setProperty(RenderThreadScheduler.THREADS_PROPERTY, "3");
+        Map<Integer, String> threads = new ConcurrentHashMap<>();
+        CountDownLatch running = new CountDownLatch(3);
+
+        RenderThreadScheduler scheduler = new RenderThreadScheduler();
+        for (int i = 0; i < 6; ++i) {
+            int child = i;
+            scheduler.schedule(() -> {
+                running.countDown();
+                try {
+                    // the first three children only finish once they all run at the same time
+                    running.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                threads.put(child, Thread.currentThread().getName());
+            });
+        }
+        scheduler.finished();
+
+        assertThat(running.getCount()).isZero();
+        assertThat(threads).hasSize(6);
+        assertThat(threads.values()).allMatch(name -> name.startsWith("lwjgl-render-"));
+        assertThat(threads.values().stream().distinct().count()).isEqualTo(3);
+    }
+
+    @Test
+    public void sequentialByDefault() {
+        assertThat(RenderThreadScheduler.threadCount()).isEqualTo(1);
+        assertThat(RenderThreadScheduler.isParallel()).isFalse();
+    }
+}